@@ -0,0 +1,107 @@
+import java.util.*;
+
+//A* search using the Manhattan distance to the end as the heuristic, which never overestimates when every move is one step.
+//The open list is a binary heap over parallel primitive arrays keyed by f = g + h, with ties going to the deeper node
+public class AStarSearch extends GridSearch {
+    private final int[] next = new int[4];
+    private int[] cost; // steps from the start, valid for nodes in visited
+    private CellSet closed; // nodes already expanded
+    private long[] heapKeys = new long[1024];
+    private int[] heapNodes = new int[1024];
+    private int heapSize;
+    private int endRow;
+    private int endCol;
+
+    protected void allocate(int size) {
+        cost = new int[size];
+        closed = new CellSet(size);
+    }
+
+    protected int[] search(int start, int end) {
+        closed.clear();
+        heapSize = 0;
+        endRow = end / cols;
+        endCol = end % cols;
+        visited.add(start);
+        cost[start] = 0;
+        push(start, 0);
+        while (heapSize > 0) {
+            int node = pop();
+            if (closed.contains(node)) { // stale entry left behind when a cheaper route was found
+                continue;
+            }
+            nodesExpanded++;
+            if (node == end) {
+                return buildPath(node);
+            }
+            closed.add(node);
+            int steps = cost[node] + 1;
+            int count = neighbours(node, next);
+            for (int i = 0; i < count; i++) {
+                int neighbour = next[i];
+                if (!closed.contains(neighbour) && (!visited.contains(neighbour) || steps < cost[neighbour])) {
+                    visited.add(neighbour);
+                    cost[neighbour] = steps;
+                    parent[neighbour] = node;
+                    push(neighbour, steps);
+                    nodesGenerated++;
+                }
+            }
+        }
+        return null;
+    }
+
+    //Manhattan distance from a node to the end
+    private int heuristic(int node) {
+        return Math.abs(node / cols - endRow) + Math.abs(node % cols - endCol);
+    }
+
+    //f goes in the high half of the key, and the low half is inverted steps so deeper nodes sort first on equal f
+    private void push(int node, int steps) {
+        if (heapSize == heapNodes.length) {
+            heapKeys = Arrays.copyOf(heapKeys, heapSize * 2);
+            heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+        }
+        long key = ((long) (steps + heuristic(node)) << 32) | (Integer.MAX_VALUE - steps);
+        int i = heapSize++;
+        if (Metrics.ENABLED && heapSize > peakFrontier) {
+            peakFrontier = heapSize;
+        }
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heapKeys[up] <= key) {
+                break;
+            }
+            heapKeys[i] = heapKeys[up];
+            heapNodes[i] = heapNodes[up];
+            i = up;
+        }
+        heapKeys[i] = key;
+        heapNodes[i] = node;
+    }
+
+    private int pop() {
+        int top = heapNodes[0];
+        long key = heapKeys[--heapSize];
+        int node = heapNodes[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapKeys[child + 1] < heapKeys[child]) {
+                child++;
+            }
+            if (key <= heapKeys[child]) {
+                break;
+            }
+            heapKeys[i] = heapKeys[child];
+            heapNodes[i] = heapNodes[child];
+            i = child;
+        }
+        heapKeys[i] = key;
+        heapNodes[i] = node;
+        return top;
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.*;
+
+//Bidirectional BFS. Grows one whole level at a time from whichever side has the smaller frontier and stops as soon as a newly added
+//node has already been reached from the other side. Every overlap is caught the moment it appears, so the meeting node lies on a shortest path
+public class BidirectionalSearch extends GridSearch {
+    private final int[] next = new int[4];
+    private int[] forward; // frontier grown from the start
+    private int[] backward; // frontier grown from the end
+    private CellSet reachedFromEnd;
+    private int[] child; // node each backward node was reached from, the next step towards the end, -1 for the end
+
+    protected void allocate(int size) {
+        forward = new int[size];
+        backward = new int[size];
+        reachedFromEnd = new CellSet(size);
+        child = new int[size];
+    }
+
+    protected int[] search(int start, int end) {
+        reachedFromEnd.clear();
+        if (start == end) {
+            return new int[]{start};
+        }
+        int forwardHead = 0, forwardTail = 0, backwardHead = 0, backwardTail = 0;
+        visited.add(start);
+        forward[forwardTail++] = start;
+        reachedFromEnd.add(end);
+        child[end] = -1;
+        backward[backwardTail++] = end;
+
+        while (forwardHead < forwardTail && backwardHead < backwardTail) {
+            if (Metrics.ENABLED) {
+                peakFrontier = Math.max(peakFrontier, forwardTail - forwardHead + backwardTail - backwardHead);
+            }
+            if (forwardTail - forwardHead <= backwardTail - backwardHead) {
+                int levelEnd = forwardTail;
+                while (forwardHead < levelEnd) {
+                    int node = forward[forwardHead++];
+                    int count = neighbours(node, next);
+                    for (int i = 0; i < count; i++) {
+                        int neighbour = next[i];
+                        if (!visited.contains(neighbour)) {
+                            visited.add(neighbour);
+                            parent[neighbour] = node;
+                            forward[forwardTail++] = neighbour;
+                            nodesGenerated++;
+                            if (reachedFromEnd.contains(neighbour)) {
+                                nodesExpanded = forwardHead + backwardHead;
+                                return join(neighbour);
+                            }
+                        }
+                    }
+                }
+            } else {
+                int levelEnd = backwardTail;
+                while (backwardHead < levelEnd) {
+                    int node = backward[backwardHead++];
+                    int count = neighbours(node, next);
+                    for (int i = 0; i < count; i++) {
+                        int neighbour = next[i];
+                        if (!reachedFromEnd.contains(neighbour)) {
+                            reachedFromEnd.add(neighbour);
+                            child[neighbour] = node;
+                            backward[backwardTail++] = neighbour;
+                            nodesGenerated++;
+                            if (visited.contains(neighbour)) {
+                                nodesExpanded = forwardHead + backwardHead;
+                                return join(neighbour);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        nodesExpanded = forwardHead + backwardHead;
+        return null;
+    }
+
+    //Start to meeting node from the parent array, then meeting node to end from the child array
+    private int[] join(int meet) {
+        int[] head = buildPath(meet);
+        int length = head.length;
+        for (int i = child[meet]; i != -1; i = child[i]) {
+            length++;
+        }
+        int[] path = Arrays.copyOf(head, length);
+        int index = head.length;
+        for (int i = child[meet]; i != -1; i = child[i]) {
+            path[index++] = i;
+        }
+        return path;
+    }
+}
@@ -0,0 +1,48 @@
+import java.util.*;
+
+//Fixed size bitset over flat node indices, used for visited and on-path markers. One bit per node instead of a boolean[][] row per maze row
+public class CellSet {
+    private final long[] words;
+    private final int size;
+
+    public CellSet(int size) {
+        this.size = size;
+        this.words = new long[(size + 63) >>> 6];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int node) {
+        return (words[node >>> 6] & (1L << node)) != 0;
+    }
+
+    public void add(int node) {
+        words[node >>> 6] |= 1L << node;
+    }
+
+    public void remove(int node) {
+        words[node >>> 6] &= ~(1L << node);
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    //first node at or after from that is not in the set, or size() if every node from there on is in it
+    public int nextAbsent(int from) {
+        int word = from >>> 6;
+        if (word >= words.length) {
+            return size;
+        }
+        long absent = ~words[word] & (-1L << from);
+        while (absent == 0) {
+            if (++word == words.length) {
+                return size;
+            }
+            absent = ~words[word];
+        }
+        return Math.min(size, (word << 6) + Long.numberOfTrailingZeros(absent));
+    }
+}
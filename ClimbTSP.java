@@ -1,84 +1,540 @@
 import java.util.*;
 import java.io.*;
+import java.util.stream.*;
 
+//Simulated annealing for the travelling salesman problem. Each ClimbTSP is one annealing chain with its own tour and random
+//generator over a shared TspInstance, so several chains can run side by side for parallel tempering. Small instances are solved
+//exactly with Held-Karp instead
 public class ClimbTSP {
-    static int N;
-    static int[][] dp;
-    static ArrayList<Integer> x;
-    static ArrayList<Integer> y;
-    static int[][] parent;
-    static List<Integer> cycle = new ArrayList<>();
+    static final double COOLING_RATE = 0.003;
+    static final double FINAL_TEMPERATURE = 1e-4; // annealing stops at this fraction of the start temperature, 1 for swaps from 10000
+    static final int MAX_EXACT = 24; // Held-Karp needs 2^(N-1) * (N-1) doubles and as many parent bytes plus 2^(N-1) ints of masks, about 1.8GB at 24 cities
+    static volatile boolean stopped; // set on shutdown, annealing stops after the current sweep with the best tour so far
+
+    private final TspInstance tsp;
+    private final int N;
+    private final boolean swaps; // node swaps, otherwise 2-opt on the neighbour lists
+    private final boolean orOpt; // Or-opt moves in between the 2-opt ones
+    private final int K; // candidate neighbours per city
+    private final int[] cycle; // swaps keep city 0 at both ends of the N + 1 entries, 2-opt and Or-opt use cycle[0..N-1] as a ring
+    private final int[] pos; // position of each city in the ring for 2-opt and Or-opt
+    private final SplittableRandom rand;
+    private double length; // current tour length, updated with the change of every move taken
+    private final int[] bestCycle; // best tour of this chain, only copied when a move leaves it
+    private double bestLength;
+    private boolean atBest; // cycle is the best tour so far, so bestCycle is out of date
+    private long accepted; // moves taken and turned down, for the progress report
+    private long rejected;
+
+    ClimbTSP(TspInstance tsp, String move, SplittableRandom rand) {
+        this.tsp = tsp;
+        this.N = tsp.size();
+        this.rand = rand;
+        swaps = move.equals("swap");
+        orOpt = move.equals("oropt");
+        cycle = new int[N + 1];
+        if (swaps) {
+            // Initialize cycle with 0 at the start and end
+            for (int i = 1; i < N; i++) {
+                cycle[i] = i;
+            }
+            K = 0;
+            pos = null;
+        } else {
+            System.arraycopy(tsp.gridOrder(), 0, cycle, 0, N);
+            cycle[N] = cycle[0];
+            K = tsp.neighbourCount();
+            pos = new int[N];
+            for (int i = 0; i < N; i++) {
+                pos[cycle[i]] = i;
+            }
+        }
+        //calculate total distance once
+        length = tsp.tourLength(cycle);
+        bestCycle = new int[N + 1];
+        bestLength = length;
+        atBest = true;
+    }
 
     public static void main(String[] args) throws IOException {
-        x = new ArrayList<>();
-        y = new ArrayList<>();
-        BufferedReader br = new BufferedReader(new FileReader(args[0]));
-        N = Integer.parseInt(br.readLine());
+        if (args.length == 0) {
+            System.out.println("Format: java ClimbTSP <pointsFile> [--move swap|2opt|oropt] [--neighbours K] [--replicas R] [--budget ms] [--progress ms] [--recompute rounds] [--float] [--seed n] [--exact-limit N] [--matrix-limit N] [--save-binary file]");
+            return;
+        }
+        int matrixLimit = 5000; // largest N that gets a precomputed matrix, 5000 cities takes 100MB
+        String move = "swap";
+        int neighbours = 8;
+        int replicas = 1;
+        long budget = 0; // wall clock limit in ms, 0 runs the full schedule
+        long progress = 0; // ms between progress lines, 0 for none
+        int exactLimit = 20; // largest N solved exactly, 0 always anneals
+        String binaryFile = null; // where to save the points in the binary format for later runs
+        int recompute = 100; // rounds between exact recomputes of the tour lengths
+        boolean fractional = false; // distances without truncating them to an int
+        SplittableRandom rand = new SplittableRandom();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--matrix-limit") && i + 1 < args.length) {
+                matrixLimit = Math.min(Integer.parseInt(args[++i]), TspInstance.MAX_MATRIX);
+            } else if (args[i].equals("--move") && i + 1 < args.length) {
+                move = args[++i];
+            } else if (args[i].equals("--neighbours") && i + 1 < args.length) {
+                neighbours = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--replicas") && i + 1 < args.length) {
+                replicas = Math.max(1, Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--budget") && i + 1 < args.length) {
+                budget = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--progress") && i + 1 < args.length) {
+                progress = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--exact-limit") && i + 1 < args.length) {
+                exactLimit = Math.min(Integer.parseInt(args[++i]), MAX_EXACT);
+            } else if (args[i].equals("--save-binary") && i + 1 < args.length) {
+                binaryFile = args[++i];
+            } else if (args[i].equals("--recompute") && i + 1 < args.length) {
+                recompute = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--float")) {
+                fractional = true;
+            } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                // the same seed gives the same tour, except under --budget where the schedule follows the clock
+                rand = new SplittableRandom(Long.parseLong(args[++i]));
+            } else {
+                System.out.println("Unknown option: " + args[i]);
+                return;
+            }
+        }
+        if (!move.equals("swap") && !move.equals("2opt") && !move.equals("oropt")) {
+            System.out.println("Unknown move: " + move + ", use swap, 2opt or oropt");
+            return;
+        }
 
-        //read points and store in x and y lists
-        for (int i = 0; i < N; i++) {
-            String[] input = br.readLine().split(" ");
-            x.add(Integer.parseInt(input[0]));
-            y.add(Integer.parseInt(input[1]));
+        TspInstance tsp = TspInstance.read(args[0]);
+        int N = tsp.size();
+        if (binaryFile != null) {
+            tsp.writeBinary(binaryFile);
+        }
+        if (fractional) {
+            tsp.useFractionalDistances();
         }
 
-        // Initialize cycle with 0 at the start and end
-        cycle.add(0); 
-        for (int i = 1; i < N; i++) {
-            cycle.add(i);
+        //precompute every distance once when the matrix fits, larger instances compute them on the fly
+        if (N <= matrixLimit) {
+            tsp.precomputeDistances();
+        }
+        // Segment moves need a few cities outside the segment, tiny instances stay with swaps
+        if (N < 8) {
+            move = "swap";
+        }
+        boolean exact = N <= exactLimit;
+        if (!exact && !move.equals("swap")) {
+            tsp.buildNeighbours(neighbours);
         }
-        cycle.add(0); 
+
+        // Ctrl-C or a kill ends the annealing early, the hook waits for the best tour so far to be printed before the JVM exits
+        Thread main = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stopped = true;
+            try {
+                main.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
 
         long startTime = System.currentTimeMillis();
 
-        climb();
+        int[] tour = exact ? heldKarp(tsp) : anneal(tsp, move, replicas, budget, progress, recompute, rand);
+        System.out.println("Minimum cost: " + tsp.tourLength(tour));
+        System.out.println("Cycle: " + Arrays.toString(tour));
 
         long endTime = System.currentTimeMillis();
         long timeElapsed = endTime - startTime;
         
         System.out.println("Execution time in milliseconds : " + timeElapsed);
-        br.close();
     }
 
-    //Hill climbing implemented with summulated annealing for neighbour selection, concept is that you occasionally accept worse solutions in hopes they can lead to better ones
-    static void climb() {
-        //calculate total distance once
-        double bestDistance = 0;
-        for (int i = 0; i < cycle.size() - 1; i++) {
-            bestDistance += dist(cycle.get(i), cycle.get(i + 1));
+    //Hill climbing implemented with summulated annealing for neighbour selection, concept is that you occasionally accept worse solutions in hopes they can lead to better ones.
+    //With more than one replica this is parallel tempering: one chain per temperature, each doing a sweep per round on its own core. The
+    //coldest chain follows the cooling schedule and the others are spaced geometrically up to twice as hot. After every round neighbouring
+    //temperatures trade tours with the Metropolis probability exp((1/T_hot - 1/T_cold) * (E_hot - E_cold)), alternating between even and
+    //odd pairs, so good tours found by the hotter chains sink to the cold end without being cooled faster than the schedule.
+    //The schedule cools by COOLING_RATE a round, or with a budget it cools geometrically in time, down to FINAL_TEMPERATURE of the
+    //start temperature so instances anneal the same at any scale. With a budget that point is reached at the deadline.
+    //Every recompute rounds the lengths are summed again from scratch so rounding in the running totals cannot build up.
+    //All randomness comes from rand, each chain gets its own generator split from it.
+    //Returns the best tour any chain reached, also when stopped early
+    static int[] anneal(TspInstance tsp, String move, int replicas, long budget, long progress, int recompute, SplittableRandom rand) {
+        ClimbTSP[] chains = new ClimbTSP[replicas];
+        for (int r = 0; r < replicas; r++) {
+            chains[r] = new ClimbTSP(tsp, move, rand.split());
         }
-
         //intialise variables for annealing
-        double temperature = 10000.0;
-        double coolingRate = 0.003;
-    
+        double start = chains[0].startTemperature();
+        double coldest = start;
+        double end = start * FINAL_TEMPERATURE;
+        double[] temperatures = new double[replicas];
+
+        long startTime = System.nanoTime();
+        long lastReport = startTime;
+        long lastAccepted = 0, lastRejected = 0;
+        long roundAccepted = 0, roundRejected = 0; // totals at the end of the last round, for the per round metrics
         //stopping condition
-        while (temperature > 1) {
-            //calculates change in distance instead of total distance for each potential neighbour
-            for (int i = 1; i < N - 1; i++) {
-                for (int j = i + 1; j < N - 1; j++) {
-                    double oldDistance, newDistance;
-                    if (j == i + 1) { // when nodes are next to each other
-                        oldDistance = dist(cycle.get(i - 1), cycle.get(i)) + dist(cycle.get(j), cycle.get(j + 1));
-                        newDistance = dist(cycle.get(i - 1), cycle.get(j)) + dist(cycle.get(i), cycle.get(j + 1));
-                    } else {
-                        oldDistance = dist(cycle.get(i - 1), cycle.get(i)) + dist(cycle.get(i), cycle.get(i + 1))
-                                    + dist(cycle.get(j - 1), cycle.get(j)) + dist(cycle.get(j), cycle.get(j + 1));
-                        newDistance = dist(cycle.get(i - 1), cycle.get(j)) + dist(cycle.get(j), cycle.get(i + 1))
-                                    + dist(cycle.get(j - 1), cycle.get(i)) + dist(cycle.get(i), cycle.get(j + 1));
+        for (int round = 1; coldest > end && !stopped; round++) {
+            for (int r = 0; r < replicas; r++) {
+                temperatures[r] = replicas == 1 ? coldest : coldest * Math.pow(2, (replicas - 1 - r) / (double) (replicas - 1));
+            }
+            if (replicas == 1) {
+                chains[0].sweep(coldest);
+            } else {
+                IntStream.range(0, replicas).parallel().forEach(r -> chains[r].sweep(temperatures[r]));
+            }
+
+            for (int r = rand.nextInt(2); r + 1 < replicas; r += 2) {
+                ClimbTSP hot = chains[r];
+                ClimbTSP cold = chains[r + 1];
+                double exchange = Math.exp((1 / temperatures[r] - 1 / temperatures[r + 1]) * (hot.length - cold.length));
+                if (exchange >= 1 || rand.nextDouble() < exchange) {
+                    chains[r] = cold;
+                    chains[r + 1] = hot;
+                }
+            }
+            if (recompute > 0 && round % recompute == 0) {
+                for (ClimbTSP chain : chains) {
+                    chain.recomputeLengths();
+                }
+            }
+
+            if (Metrics.ENABLED) {
+                long accepted = 0, rejected = 0;
+                for (ClimbTSP chain : chains) {
+                    accepted += chain.accepted;
+                    rejected += chain.rejected;
+                }
+                Metrics.observe("tsp_round_moves_evaluated", accepted + rejected - roundAccepted - roundRejected);
+                Metrics.observe("tsp_round_moves_accepted", accepted - roundAccepted);
+                roundAccepted = accepted;
+                roundRejected = rejected;
+            }
+
+            //Adjust temp
+            long now = System.nanoTime();
+            if (budget > 0) {
+                double elapsed = (now - startTime) / (budget * 1e6);
+                coldest = elapsed >= 1 ? 0 : start * Math.pow(FINAL_TEMPERATURE, elapsed);
+            } else {
+                coldest *= 1-COOLING_RATE;
+            }
+
+            if (progress > 0 && now - lastReport >= progress * 1_000_000L) {
+                long accepted = 0, rejected = 0;
+                double bestLength = Double.MAX_VALUE;
+                for (ClimbTSP chain : chains) {
+                    accepted += chain.accepted;
+                    rejected += chain.rejected;
+                    bestLength = Math.min(bestLength, chain.bestLength);
+                }
+                double seconds = (now - lastReport) / 1e9;
+                System.out.printf("%8.1f s  temperature %10.3f  current %14.1f  best %14.1f  accepted %12.0f/s  rejected %12.0f/s%n",
+                    (now - startTime) / 1e9, temperatures[replicas - 1], chains[replicas - 1].length, bestLength,
+                    (accepted - lastAccepted) / seconds, (rejected - lastRejected) / seconds);
+                lastReport = now;
+                lastAccepted = accepted;
+                lastRejected = rejected;
+            }
+        }
+
+        Metrics.count("tsp_moves_evaluated", roundAccepted + roundRejected);
+        Metrics.count("tsp_moves_accepted", roundAccepted);
+
+        ClimbTSP best = chains[0];
+        for (ClimbTSP chain : chains) {
+            if (chain.bestLength < best.bestLength) {
+                best = chain;
+            }
+        }
+        return best.bestTour();
+    }
+
+    //Optimal tour by Held-Karp dynamic programming over subsets, O(2^N * N^2) time and O(2^N * N) memory. Cities 1..N-1 are bits
+    //0..N-2 of a mask and dp[mask * m + j] is the shortest path that leaves city 0, visits exactly the cities in mask and ends at
+    //city j + 1, with the city before j in parent. A mask only reads masks with one city fewer, so the masks are grouped by their
+    //number of cities and each group is filled in parallel
+    static int[] heldKarp(TspInstance tsp) {
+        int N = tsp.size();
+        int[] tour = new int[N + 1];
+        if (N < 3) {
+            for (int i = 0; i < N; i++) {
+                tour[i] = i;
+            }
+            return tour;
+        }
+        int m = N - 1;
+        int full = (1 << m) - 1;
+        double[] d = new double[N * N];
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < N; j++) {
+                d[i * N + j] = tsp.dist(i, j);
+            }
+        }
+
+        // Every non empty mask ordered by its number of cities, the masks with k cities are order[layerStart[k]..layerStart[k + 1])
+        int[] layerStart = new int[m + 2];
+        for (int mask = 1; mask <= full; mask++) {
+            layerStart[Integer.bitCount(mask) + 1]++;
+        }
+        for (int k = 1; k <= m; k++) {
+            layerStart[k + 1] += layerStart[k];
+        }
+        int[] order = new int[full];
+        int[] fill = Arrays.copyOf(layerStart, m + 1);
+        for (int mask = 1; mask <= full; mask++) {
+            order[fill[Integer.bitCount(mask)]++] = mask;
+        }
+
+        double[] dp = new double[(full + 1) * m];
+        byte[] parent = new byte[(full + 1) * m];
+        for (int j = 0; j < m; j++) {
+            dp[(1 << j) * m + j] = d[j + 1];
+        }
+        for (int k = 2; k <= m; k++) {
+            IntStream.range(layerStart[k], layerStart[k + 1]).parallel().forEach(q -> {
+                int mask = order[q];
+                for (int ends = mask; ends != 0; ends &= ends - 1) {
+                    int j = Integer.numberOfTrailingZeros(ends);
+                    int prev = mask ^ (1 << j);
+                    double best = Double.MAX_VALUE;
+                    int from = 0;
+                    for (int rest = prev; rest != 0; rest &= rest - 1) {
+                        int i = Integer.numberOfTrailingZeros(rest);
+                        double length = dp[prev * m + i] + d[(i + 1) * N + j + 1];
+                        if (length < best) {
+                            best = length;
+                            from = i;
+                        }
                     }
-                    //if probability is greater than a random probability, accept it 
-                    if (acceptanceProbability(oldDistance, newDistance, temperature) > Math.random()) {
-                        Collections.swap(cycle, i, j);
-                        bestDistance -= (oldDistance - newDistance);
+                    dp[mask * m + j] = best;
+                    parent[mask * m + j] = (byte) from;
+                }
+            });
+        }
+
+        // Close the cheapest full path back to city 0, then follow the parents back to fill the tour from the end
+        double best = Double.MAX_VALUE;
+        int last = 0;
+        for (int j = 0; j < m; j++) {
+            double length = dp[full * m + j] + d[(j + 1) * N];
+            if (length < best) {
+                best = length;
+                last = j;
+            }
+        }
+        int mask = full;
+        for (int i = N - 1; i >= 1; i--) {
+            tour[i] = last + 1;
+            int from = parent[mask * m + last];
+            mask ^= 1 << last;
+            last = from;
+        }
+        return tour;
+    }
+
+    //Swaps start at 10000. Neighbour moves start no hotter than the typical gap between neighbours, above that nearly every move
+    //is taken and each one can reverse half the ring
+    double startTemperature() {
+        if (swaps) {
+            return 10000.0;
+        }
+        double nearest = 0;
+        for (int i = 0; i < N; i++) {
+            nearest += tsp.dist(i, tsp.neighbour(i, 0));
+        }
+        return Math.max(1, Math.min(10000.0, nearest / N));
+    }
+
+    //One temperature step, a full sweep of swaps or N neighbour list moves
+    void sweep(double temperature) {
+        if (swaps) {
+            sweepSwaps(temperature);
+            return;
+        }
+        // Or-opt alone cannot undo crossing edges, so oropt alternates it with 2-opt
+        for (int step = 0; step < N; step++) {
+            length += orOpt && (step & 1) == 1 ? tryOrOpt(temperature) : tryTwoOpt(temperature);
+            if (length < bestLength) {
+                bestLength = length;
+                atBest = true;
+            }
+        }
+    }
+
+    //the best tour of this chain turned to start and end at city 0
+    int[] bestTour() {
+        int[] ring = atBest ? cycle : bestCycle;
+        int first = 0;
+        while (ring[first] != 0) {
+            first++;
+        }
+        int[] tour = new int[N + 1];
+        for (int i = 0; i < N; i++) {
+            tour[i] = ring[(first + i) % N];
+        }
+        return tour;
+    }
+
+    //Keeps a copy of the tour before a move makes it longer, if it is the best one so far. While the chain is improving nothing
+    //is copied, and the copy is made once per best tour rather than on every improvement
+    private void leavingTour() {
+        if (atBest) {
+            System.arraycopy(cycle, 0, bestCycle, 0, N + 1);
+            atBest = false;
+        }
+    }
+
+    //Sums the current and best tour lengths again, replacing the running totals
+    void recomputeLengths() {
+        if (!swaps) {
+            cycle[N] = cycle[0];
+        }
+        length = tsp.tourLength(cycle);
+        if (atBest) {
+            bestLength = length;
+        } else {
+            if (!swaps) {
+                bestCycle[N] = bestCycle[0];
+            }
+            bestLength = tsp.tourLength(bestCycle);
+        }
+    }
+
+    //calculates change in distance instead of total distance for each potential neighbour
+    private void sweepSwaps(double temperature) {
+        for (int i = 1; i < N - 1; i++) {
+            for (int j = i + 1; j < N - 1; j++) {
+                double oldDistance, newDistance;
+                if (j == i + 1) { // when nodes are next to each other
+                    oldDistance = tsp.dist(cycle[i - 1], cycle[i]) + tsp.dist(cycle[j], cycle[j + 1]);
+                    newDistance = tsp.dist(cycle[i - 1], cycle[j]) + tsp.dist(cycle[i], cycle[j + 1]);
+                } else {
+                    oldDistance = tsp.dist(cycle[i - 1], cycle[i]) + tsp.dist(cycle[i], cycle[i + 1])
+                                + tsp.dist(cycle[j - 1], cycle[j]) + tsp.dist(cycle[j], cycle[j + 1]);
+                    newDistance = tsp.dist(cycle[i - 1], cycle[j]) + tsp.dist(cycle[j], cycle[i + 1])
+                                + tsp.dist(cycle[j - 1], cycle[i]) + tsp.dist(cycle[i], cycle[j + 1]);
+                }
+                //if probability is greater than a random probability, accept it 
+                if (acceptanceProbability(oldDistance, newDistance, temperature) > rand.nextDouble()) {
+                    if (newDistance > oldDistance) {
+                        leavingTour();
                     }
+                    int swap = cycle[i];
+                    cycle[i] = cycle[j];
+                    cycle[j] = swap;
+                    length -= (oldDistance - newDistance);
+                    if (length < bestLength) {
+                        bestLength = length;
+                        atBest = true;
+                    }
+                    accepted++;
+                } else {
+                    rejected++;
                 }
             }
-            //Adjust temp
-            temperature *= 1-coolingRate;
         }
-        System.out.println("Minimum cost: " + bestDistance);
-        System.out.println("Cycle: " + cycle);
+    }
+
+    //Tries replacing the edges a-b and c-d with a-c and b-d, where c is a near neighbour of a. Returns the change in length if the move was taken, 0 otherwise
+    private double tryTwoOpt(double temperature) {
+        int a = rand.nextInt(N);
+        int c = tsp.neighbour(a, rand.nextInt(K));
+        int b = next(a);
+        int d = next(c);
+        if (c == b || d == a) { // the edges touch, nothing to reconnect
+            return 0;
+        }
+        double delta = tsp.dist(a, c) + tsp.dist(b, d) - tsp.dist(a, b) - tsp.dist(c, d);
+        if (acceptanceProbability(0, delta, temperature) > rand.nextDouble()) {
+            if (delta > 0) {
+                leavingTour();
+            }
+            twoOpt(a, b, c, d);
+            accepted++;
+            return delta;
+        }
+        rejected++;
+        return 0;
+    }
+
+    //Tries moving a segment of 1 to 3 cities s1..s2 from between a and b to between c and d, reversed so s2 sits next to c, a near
+    //neighbour of s2. Returns the change in length if the move was taken, 0 otherwise
+    private double tryOrOpt(double temperature) {
+        int s1 = rand.nextInt(N);
+        int length = 1 + rand.nextInt(3);
+        int s2 = s1;
+        for (int i = 1; i < length; i++) {
+            s2 = next(s2);
+        }
+        int a = prev(s1);
+        int b = next(s2);
+        int c = tsp.neighbour(s2, rand.nextInt(K));
+        if (c == a || (pos[c] - pos[s1] + N) % N < length) { // already there, or inside the segment
+            return 0;
+        }
+        int d = next(c);
+        double delta = tsp.dist(a, b) + tsp.dist(c, s2) + tsp.dist(s1, d) - tsp.dist(a, s1) - tsp.dist(s2, b) - tsp.dist(c, d);
+        if (acceptanceProbability(0, delta, temperature) > rand.nextDouble()) {
+            if (delta > 0) {
+                leavingTour();
+            }
+            // a c..b s2..s1 d after the first reversal, then putting b back next to a leaves a b..c s2..s1 d.
+            // The first reversal may have flipped the direction of the ring, so check which way round a and c are
+            twoOpt(a, s1, c, d);
+            if (next(a) == c) {
+                twoOpt(a, c, b, s2);
+            } else {
+                twoOpt(s2, b, c, a);
+            }
+            accepted++;
+            return delta;
+        }
+        rejected++;
+        return 0;
+    }
+
+    //Replaces the edges a-b and c-d with a-c and b-d, where b follows a and d follows c. Either the path b..c or the rest of the ring
+    //d..a has to be reversed and both give the same tour, so the shorter one is
+    private void twoOpt(int a, int b, int c, int d) {
+        int length = (pos[c] - pos[b] + N) % N + 1;
+        if (length * 2 > N) {
+            reverse(pos[d], N - length);
+        } else {
+            reverse(pos[b], length);
+        }
+    }
+
+    //reverses length cities of the ring starting at position from, wrapping past the end
+    private void reverse(int from, int length) {
+        int i = from;
+        int j = (from + length - 1) % N;
+        for (int k = length / 2; k > 0; k--) {
+            int swap = cycle[i];
+            cycle[i] = cycle[j];
+            cycle[j] = swap;
+            pos[cycle[i]] = i;
+            pos[cycle[j]] = j;
+            if (++i == N) {
+                i = 0;
+            }
+            if (--j < 0) {
+                j = N - 1;
+            }
+        }
+    }
+
+    private int next(int city) {
+        int i = pos[city] + 1;
+        return cycle[i == N ? 0 : i];
+    }
+
+    private int prev(int city) {
+        int i = pos[city];
+        return cycle[i == 0 ? N - 1 : i - 1];
     }
     
     //calculates a probability of accepting a worse solution, probabilty is higher when temperature is higher
@@ -88,9 +544,4 @@ public class ClimbTSP {
         }
         return Math.exp((energy - newEnergy) / temperature);
     }
-
-    //Calculates euclidean distance
-    static int dist(int i, int j) {
-        return (int)Math.sqrt(Math.pow(x.get(j) - x.get(i), 2) + Math.pow(y.get(j) - y.get(i), 2));
-    }
 }
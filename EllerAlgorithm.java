@@ -0,0 +1,151 @@
+import java.io.*;
+import java.util.*;
+
+//Eller's algorithm. Carves one row at a time keeping only the set each node of the current row belongs to, so it needs O(cols)
+//memory however many rows there are. In each row neighbours in different sets are joined at random, then every set sends at least
+//one random node down into the next row, and the nodes below that nothing reached start sets of their own. The last row joins every
+//pair of neighbours still in different sets, which connects the whole maze. write streams the rows into the text format as they are
+//carved, so mazes far larger than memory can be written at the speed of the disk
+public class EllerAlgorithm implements MazeAlgorithm {
+
+    //receives each row once it is finished, as wall values 0-3 in the maze file encoding
+    private interface RowSink {
+        void accept(int row, byte[] walls) throws IOException;
+    }
+
+    //fair coin flips taken 64 at a time from one nextLong, most of the random choices here are coin flips
+    private static final class Coins {
+        private final SplittableRandom rand;
+        private long bits;
+        private int left;
+
+        Coins(SplittableRandom rand) {
+            this.rand = rand;
+        }
+
+        boolean flip() {
+            if (left == 0) {
+                bits = rand.nextLong();
+                left = 64;
+            }
+            left--;
+            boolean heads = (bits & 1) != 0;
+            bits >>>= 1;
+            return heads;
+        }
+    }
+
+    public void carve(MazeGrid maze, SplittableRandom rand) {
+        int cols = maze.getCols();
+        try {
+            carveRows(maze.getRows(), cols, rand, (row, walls) -> {
+                for (int col = 0; col < cols; col++) {
+                    maze.open(row * cols + col, walls[col]);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // the grid never throws, only the stream can
+        }
+    }
+
+    //Writes a rows x cols maze in the text format holding no more than one row. The header goes out before any row is carved, so
+    //the start is always the top left node and the end the bottom right one. rows * cols may be more than a MazeGrid can hold
+    public static void write(int rows, int cols, SplittableRandom rand, MazeWriter out) throws IOException {
+        if (rows <= 0 || cols <= 0) {
+            throw new IllegalArgumentException("Unsupported maze size: " + rows + "x" + cols);
+        }
+        out.print(rows).print(':').print(cols).print(':').print(1).print(':').print((long) rows * cols).print(':');
+        carveRows(rows, cols, rand, (row, walls) -> out.writeWalls(walls, cols));
+    }
+
+    private static void carveRows(int rows, int cols, SplittableRandom rand, RowSink sink) throws IOException {
+        int[] set = new int[cols]; // label of each node's set, labels below cols came down from the row above, cols + col is a new set
+        int[] parent = new int[cols]; // union-find over the columns of the row, a set's root is its leftmost column
+        int[] first = new int[2 * cols]; // first column with each label while the row is grouped, -1 otherwise
+        int[] members = new int[cols]; // nodes in each set
+        int[] pick = new int[cols]; // for a set where no node went down, how many more of its nodes to pass before the one that does
+        boolean[] goesDown = new boolean[cols]; // whether any node of each set goes down
+        byte[] walls = new byte[cols];
+        Coins coins = new Coins(rand);
+        Arrays.fill(first, -1);
+        for (int col = 0; col < cols; col++) {
+            set[col] = cols + col;
+        }
+
+        for (int row = 0; row < rows; row++) {
+            boolean last = row == rows - 1;
+            // Nodes with the same label start out joined to the first of them
+            for (int col = 0; col < cols; col++) {
+                if (first[set[col]] == -1) {
+                    first[set[col]] = col;
+                }
+                parent[col] = first[set[col]];
+            }
+            for (int col = 0; col < cols; col++) {
+                first[set[col]] = -1;
+            }
+            Arrays.fill(walls, (byte) 0);
+
+            // Join neighbours in different sets with even odds, or always on the last row
+            for (int col = 0; col + 1 < cols; col++) {
+                int left = find(parent, col);
+                int right = find(parent, col + 1);
+                if (left != right && (last || coins.flip())) {
+                    walls[col] |= MazeGrid.RIGHT;
+                    parent[Math.max(left, right)] = Math.min(left, right);
+                }
+            }
+            if (last) {
+                sink.accept(row, walls);
+                break;
+            }
+
+            // Point every column straight at its root, roots are leftmost columns so one pass left to right does it
+            for (int col = 0; col < cols; col++) {
+                parent[col] = parent[parent[col]];
+            }
+
+            // Each node goes down with even odds, then a set where none did sends a random one of its nodes. The first node of such
+            // a set draws which of the members goes and the count runs down over the members after it
+            for (int col = 0; col < cols; col++) {
+                int root = parent[col];
+                members[root] = 0;
+                goesDown[root] = false;
+            }
+            for (int col = 0; col < cols; col++) {
+                int root = parent[col];
+                members[root]++;
+                if (coins.flip()) {
+                    walls[col] |= MazeGrid.DOWN;
+                    goesDown[root] = true;
+                }
+            }
+            for (int col = 0; col < cols; col++) {
+                int root = parent[col];
+                if (!goesDown[root]) {
+                    if (members[root] > 0) {
+                        pick[root] = rand.nextInt(members[root]);
+                        members[root] = 0;
+                    }
+                    if (pick[root]-- == 0) {
+                        walls[col] |= MazeGrid.DOWN;
+                    }
+                }
+            }
+            sink.accept(row, walls);
+
+            // The nodes below carry their set on, the rest of the next row starts in sets of their own
+            for (int col = 0; col < cols; col++) {
+                set[col] = (walls[col] & MazeGrid.DOWN) != 0 ? parent[col] : cols + col;
+            }
+        }
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+}
@@ -0,0 +1,405 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+//Breadth first search for mazes too large for the heap. The maze file is memory mapped and read in place, and the visited set
+//(1 bit per node) and the direction each node was reached from (2 bits per node) live in memory mapped scratch files, so the heap
+//only holds a few buffers however large the maze is. The search goes a whole level at a time with each level in node order, which
+//keeps the reads of the maze and the scratch files moving forward through them rather than jumping around. Each run of a level is
+//kept in a buffer and only spilled to its file once it outgrows it, since most levels of a maze are a few hundred nodes.
+//A level never has to be sorted: the nodes reached from the level above come out in three runs that are each already in order,
+//those reached going up, going sideways and going down, and a three way merge of the runs reads the level back in order.
+//Nodes are longs so mazes with more than 2^31 nodes work too. In a perfect maze there is only one path, so the result is the same
+//as the in-memory BFS, with loops it is a shortest path but may not be the same one
+public class ExternalSearch implements Closeable {
+    private static final long WINDOW = 1L << 30; // largest slice of a file mapped at once
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int RUN_BUFFER_SIZE = 1 << 20; // 128K nodes of a run held before it spills to its file
+    private static final int UP = 0, RIGHT = 1, DOWN = 2, LEFT = 3; // direction from a node back to the node it was reached from
+    private static final int ABOVE = 0, SIDE = 1, BELOW = 2; // runs of a level, by how its nodes were reached
+
+    private final Path scratchDir;
+    private final MazeFile maze;
+    private final ScratchBits visited;
+    private final ScratchBits directions;
+    private final Run[][] runs = new Run[2][3]; // runs of the level being read and of the level being written, swapped each level
+    private long nodesGenerated;
+    private long steps = -1;
+
+    //Maps the maze file and creates the scratch files in scratchDir, which should be on disk rather than a RAM backed /tmp
+    public ExternalSearch(String mazeFile, Path scratchDir) throws IOException {
+        this.scratchDir = scratchDir;
+        maze = new MazeFile(mazeFile);
+        long size = maze.rows * maze.cols;
+        visited = new ScratchBits(scratchDir, size, 1);
+        directions = new ScratchBits(scratchDir, size, 2);
+        for (int level = 0; level < 2; level++) {
+            for (int run = 0; run < 3; run++) {
+                runs[level][run] = new Run(Files.createTempFile(scratchDir, "maze", ".level"));
+            }
+        }
+    }
+
+    //Number of nodes reached by the search
+    public long getNodesGenerated() {
+        return nodesGenerated;
+    }
+
+    //Searches from the start to the end a level at a time, returns the number of steps or -1 if the end can't be reached
+    public long search() throws IOException {
+        long start = maze.start, end = maze.end, size = maze.rows * maze.cols;
+        if (start < 0 || start >= size || end < 0 || end >= size) {
+            throw new IOException("Start or end node is outside the maze");
+        }
+        visited.set(start, 1);
+        nodesGenerated = 0;
+        if (start == end) {
+            return steps = 0;
+        }
+        for (Run run : runs[0]) {
+            run.startWriting();
+        }
+        runs[0][SIDE].write(start);
+        for (Run run : runs[0]) {
+            run.finishWriting();
+        }
+
+        long cols = maze.cols;
+        int current = 0;
+        for (long depth = 1; ; depth++) {
+            Run[] level = runs[current];
+            Run[] out = runs[1 - current];
+            for (int run = 0; run < 3; run++) {
+                level[run].startReading();
+                out[run].startWriting();
+            }
+            // Each node sends up, left, right then down, so every run stays in node order, see reach. Merging the runs of the
+            // level by always taking the smallest head reads the level back in node order
+            long above = level[ABOVE].read(), side = level[SIDE].read(), below = level[BELOW].read();
+            long reached = 0;
+            while (true) {
+                long node;
+                if (above <= side && above <= below) {
+                    node = above;
+                    above = level[ABOVE].read();
+                } else if (side <= below) {
+                    node = side;
+                    side = level[SIDE].read();
+                } else {
+                    node = below;
+                    below = level[BELOW].read();
+                }
+                if (node == Long.MAX_VALUE) {
+                    break;
+                }
+                int walls = maze.get(node);
+                if (node >= cols && (maze.get(node - cols) & MazeGrid.DOWN) != 0) {
+                    reached += reach(node - cols, DOWN, out[ABOVE]);
+                }
+                if (node % cols > 0 && (maze.get(node - 1) & MazeGrid.RIGHT) != 0) {
+                    reached += reach(node - 1, RIGHT, out[SIDE]);
+                }
+                if ((walls & MazeGrid.RIGHT) != 0) {
+                    reached += reach(node + 1, LEFT, out[SIDE]);
+                }
+                if ((walls & MazeGrid.DOWN) != 0) {
+                    reached += reach(node + cols, UP, out[BELOW]);
+                }
+            }
+            for (int run = 0; run < 3; run++) {
+                level[run].finishReading();
+                out[run].finishWriting();
+            }
+            nodesGenerated += reached;
+            if (visited.get(end) != 0) {
+                return steps = depth;
+            }
+            if (reached == 0) {
+                return -1;
+            }
+            current = 1 - current;
+        }
+    }
+
+    //Marks a node reached and adds it to its run of the next level. Nodes of the current level are all visited, so a node reached
+    //sideways from one node of the level is never reached again from a later one, which keeps the sideways run in order as well
+    //returns 1 if the node is new, 0 if it was already reached
+    private int reach(long node, int back, Run run) throws IOException {
+        if (visited.get(node) != 0) {
+            return 0;
+        }
+        visited.set(node, 1);
+        directions.set(node, back);
+        run.write(node);
+        return 1;
+    }
+
+    //Writes the path found by search in the solution file format, steps : (a, b, c). Walking back from the end gives the nodes last
+    //to first, so they go to a scratch file first and are read back from its end a block at a time
+    public void writePath(MazeWriter out) throws IOException {
+        Path file = Files.createTempFile(scratchDir, "maze", ".path");
+        try {
+            try (DataOutputStream backwards = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE))) {
+                long node = maze.end;
+                backwards.writeLong(node);
+                for (long i = 0; i < steps; i++) {
+                    node = back(node);
+                    backwards.writeLong(node);
+                }
+            }
+
+            out.print(steps).print(" : ").print('(');
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                ByteBuffer block = ByteBuffer.allocateDirect(BUFFER_SIZE);
+                long position = channel.size();
+                boolean first = true;
+                while (position > 0) {
+                    int length = (int) Math.min(block.capacity(), position);
+                    position -= length;
+                    block.clear().limit(length);
+                    while (block.hasRemaining()) {
+                        channel.read(block, position + block.position());
+                    }
+                    for (int i = length - Long.BYTES; i >= 0; i -= Long.BYTES) {
+                        if (!first) {
+                            out.print(',').print(' ');
+                        }
+                        out.print(block.getLong(i) + 1);
+                        first = false;
+                    }
+                }
+            }
+            out.print(')').println();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    //the node a node was reached from
+    private long back(long node) {
+        switch (directions.get(node)) {
+            case UP:
+                return node - maze.cols;
+            case RIGHT:
+                return node + 1;
+            case DOWN:
+                return node + maze.cols;
+            default:
+                return node - 1;
+        }
+    }
+
+    public void close() throws IOException {
+        visited.close();
+        directions.close();
+        for (Run[] level : runs) {
+            for (Run run : level) {
+                run.close();
+            }
+        }
+    }
+
+    //One run of a level, written once in node order and then read back once. It stays in its buffer unless it outgrows it, then
+    //the whole run goes to its file and is read back from there a buffer at a time. The buffer and file are reused for every level
+    private static final class Run implements Closeable {
+        private final Path file;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(RUN_BUFFER_SIZE);
+        private FileChannel channel; // open while a spilled run is written or read
+        private boolean spilled;
+        private long size;
+        private long remaining;
+
+        Run(Path file) {
+            this.file = file;
+        }
+
+        void startWriting() {
+            buffer.clear();
+            spilled = false;
+            size = 0;
+        }
+
+        void write(long node) throws IOException {
+            if (!buffer.hasRemaining()) {
+                if (channel == null) {
+                    channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                    spilled = true;
+                }
+                spill();
+            }
+            buffer.putLong(node);
+            size++;
+        }
+
+        private void spill() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        void finishWriting() throws IOException {
+            if (spilled) {
+                spill();
+                channel.close();
+                channel = null;
+            }
+            buffer.flip();
+        }
+
+        void startReading() throws IOException {
+            remaining = size;
+            if (spilled) {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+                buffer.clear().flip();
+            }
+        }
+
+        //next node of the run, Long.MAX_VALUE once it is used up so it never wins the merge
+        long read() throws IOException {
+            if (remaining == 0) {
+                return Long.MAX_VALUE;
+            }
+            remaining--;
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) == -1) {
+                        break;
+                    }
+                }
+                buffer.flip();
+            }
+            return buffer.getLong();
+        }
+
+        void finishReading() throws IOException {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        }
+
+        public void close() throws IOException {
+            finishReading();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    //A maze file in either format read in place through memory mapped windows
+    private static final class MazeFile {
+        final long rows;
+        final long cols;
+        final long start; // flat index of the start node
+        final long end; // flat index of the end node
+        private final boolean binary;
+        private final long dataStart; // position of the first node
+        private final long rowBytes; // bytes per row in the binary format
+        private final MappedByteBuffer[] windows;
+        private final String filename;
+
+        MazeFile(String filename) throws IOException {
+            this.filename = filename;
+            try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+                long length = channel.size();
+                windows = new MappedByteBuffer[(int) ((length + WINDOW - 1) / WINDOW)];
+                for (int i = 0; i < windows.length; i++) {
+                    windows[i] = channel.map(FileChannel.MapMode.READ_ONLY, i * WINDOW, Math.min(WINDOW, length - i * WINDOW));
+                }
+                if (windows.length == 0) {
+                    throw new IOException("Invalid maze header in " + filename);
+                }
+                binary = length >= MazeGrid.BINARY_HEADER && windows[0].getInt(0) == MazeGrid.BINARY_MAGIC;
+                if (binary) {
+                    // Same header as MazeGrid.readRows, the checksum is not checked since that would need a pass over the whole file
+                    if (windows[0].getInt(4) != MazeGrid.BINARY_VERSION) {
+                        throw new IOException("Unsupported maze format version " + windows[0].getInt(4) + " in " + filename);
+                    }
+                    rows = windows[0].getInt(8);
+                    cols = windows[0].getInt(12);
+                    start = windows[0].getInt(16) - 1L;
+                    end = windows[0].getInt(20) - 1L;
+                    rowBytes = windows[0].getInt(24);
+                    dataStart = MazeGrid.BINARY_HEADER;
+                    if (rows <= 0 || cols <= 0 || rowBytes != (cols + 3) >>> 2 || length < dataStart + rows * rowBytes) {
+                        throw new IOException("Invalid binary maze header in " + filename);
+                    }
+                } else {
+                    long[] header = new long[4];
+                    dataStart = MazeGrid.readHeader(windows[0], header, filename);
+                    rows = header[0];
+                    cols = header[1];
+                    start = header[2] - 1;
+                    end = header[3] - 1;
+                    rowBytes = 0;
+                    if (rows <= 0 || cols <= 0 || Math.multiplyHigh(rows, cols) != 0) {
+                        throw new IOException("Invalid maze header in " + filename);
+                    }
+                    if (length < dataStart + rows * cols) {
+                        throw new IOException("Maze file " + filename + " ends before all " + rows * cols + " nodes");
+                    }
+                }
+            }
+        }
+
+        //wall value of a node in the 0-3 encoding
+        int get(long node) throws IOException {
+            if (binary) {
+                long row = node / cols, col = node % cols;
+                long position = dataStart + row * rowBytes + (col >>> 2);
+                return (windows[(int) (position / WINDOW)].get((int) (position % WINDOW)) >>> ((col & 3) << 1)) & 3;
+            }
+            long position = dataStart + node;
+            int value = windows[(int) (position / WINDOW)].get((int) (position % WINDOW)) - '0';
+            if ((value & ~3) != 0) {
+                throw new IOException("Invalid wall value at node " + (node + 1) + " in " + filename);
+            }
+            return value;
+        }
+    }
+
+    //Array of 1 or 2 bit entries in a memory mapped scratch file, all zero to begin with and deleted on close. An entry never
+    //straddles a byte, so each get or set touches one byte
+    private static final class ScratchBits implements Closeable {
+        private final Path file;
+        private final int bits;
+        private final int mask;
+        private final MappedByteBuffer[] windows;
+
+        ScratchBits(Path dir, long count, int bits) throws IOException {
+            this.bits = bits;
+            this.mask = (1 << bits) - 1;
+            file = Files.createTempFile(dir, "maze", ".scratch");
+            file.toFile().deleteOnExit();
+            long bytes = Math.max(1, (count * bits + 7) >>> 3);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // mapping past the end grows the file, the new part reads as zeros and is only given disk blocks once written
+                windows = new MappedByteBuffer[(int) ((bytes + WINDOW - 1) / WINDOW)];
+                for (int i = 0; i < windows.length; i++) {
+                    windows[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * WINDOW, Math.min(WINDOW, bytes - i * WINDOW));
+                }
+            }
+        }
+
+        int get(long index) {
+            long bit = index * bits;
+            long position = bit >>> 3;
+            return (windows[(int) (position / WINDOW)].get((int) (position % WINDOW)) >>> (bit & 7)) & mask;
+        }
+
+        void set(long index, int value) {
+            long bit = index * bits;
+            long position = bit >>> 3;
+            MappedByteBuffer window = windows[(int) (position / WINDOW)];
+            int offset = (int) (position % WINDOW);
+            int shift = (int) (bit & 7);
+            window.put(offset, (byte) ((window.get(offset) & ~(mask << shift)) | ((value & mask) << shift)));
+        }
+
+        public void close() throws IOException {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+//Breadth first or depth first search over one preallocated int frontier, used as a queue for BFS and as a stack for DFS
+//nodes are marked visited when added so each one enters the frontier at most once and the array never overflows
+public class FrontierSearch extends GridSearch {
+    private final boolean depthFirst;
+    private final int[] next = new int[4];
+    private int[] frontier;
+
+    public FrontierSearch(boolean depthFirst) {
+        this.depthFirst = depthFirst;
+    }
+
+    protected void allocate(int size) {
+        frontier = new int[size];
+    }
+
+    //BFS takes the least recently added node from the front, DFS the most recently added from the top
+    protected int[] search(int start, int end) {
+        int head = 0;
+        int tail = 0;
+        visited.add(start);
+        frontier[tail++] = start;
+        while (head < tail) {
+            int node = depthFirst ? frontier[--tail] : frontier[head++];
+            if (node == end) {
+                nodesExpanded = depthFirst ? nodesGenerated + 1 - tail : head;
+                return buildPath(node);
+            }
+            int count = neighbours(node, next);
+            for (int i = 0; i < count; i++) {
+                int neighbour = next[i];
+                if (!visited.contains(neighbour)) {
+                    visited.add(neighbour);
+                    parent[neighbour] = node;
+                    frontier[tail++] = neighbour;
+                    nodesGenerated++;
+                }
+            }
+            if (Metrics.ENABLED && tail - head > peakFrontier) {
+                peakFrontier = tail - head;
+            }
+        }
+        nodesExpanded = depthFirst ? nodesGenerated + 1 - tail : head;
+        return null;
+    }
+}
@@ -0,0 +1,78 @@
+//Base for the in-memory strategies. Keeps the visited set and parent array between solves of same sized mazes, so only the
+//first solve allocates, and gives subclasses allocation free neighbour lookup and path building
+public abstract class GridSearch implements SolverStrategy {
+    protected MazeGrid maze;
+    protected CellSet visited;
+    protected int[] parent; // flat index of the node each node was reached from, -1 for the start
+    protected int cols;
+    protected long nodesGenerated;
+    protected long nodesExpanded; // nodes taken off the frontier, set by each search from the state it already keeps
+    protected int peakFrontier; // largest frontier seen, only tracked when metrics are on
+
+    public int[] solve(MazeGrid maze, int start, int end) {
+        if (visited == null || visited.size() != maze.size()) {
+            visited = new CellSet(maze.size());
+            parent = new int[maze.size()];
+            allocate(maze.size());
+        } else {
+            visited.clear();
+        }
+        this.maze = maze;
+        this.cols = maze.getCols();
+        nodesGenerated = 0;
+        nodesExpanded = 0;
+        peakFrontier = 0;
+        parent[start] = -1;
+        long time = Metrics.ENABLED ? System.nanoTime() : 0;
+        int[] path = search(start, end);
+        if (Metrics.ENABLED) {
+            Metrics.time("solver_solve_seconds", System.nanoTime() - time);
+            Metrics.count("solver_nodes_generated", nodesGenerated);
+            Metrics.count("solver_nodes_expanded", nodesExpanded);
+            Metrics.peak("solver_peak_frontier", peakFrontier);
+        }
+        return path;
+    }
+
+    public long getNodesGenerated() {
+        return nodesGenerated;
+    }
+
+    //Creates any extra per node arrays the strategy needs, called when the maze size changes
+    protected void allocate(int size) {
+    }
+
+    protected abstract int[] search(int start, int end);
+
+    //Writes the open neighbours of a node into out (right, below, above, then left) and returns how many there are
+    //checks the right and bottom walls of the node, then the bottom wall of the node above and the right wall of the node to the left
+    protected int neighbours(int node, int[] out) {
+        int count = 0;
+        if (maze.isRightOpen(node)) {
+            out[count++] = node + 1;
+        }
+        if (maze.isDownOpen(node)) {
+            out[count++] = node + cols;
+        }
+        if (node >= cols && maze.isDownOpen(node - cols)) {
+            out[count++] = node - cols;
+        }
+        if (node % cols > 0 && maze.isRightOpen(node - 1)) {
+            out[count++] = node - 1;
+        }
+        return count;
+    }
+
+    //Walks the parent array back from a node once to get the length, then again to fill the path from the back
+    protected int[] buildPath(int node) {
+        int length = 0;
+        for (int i = node; i != -1; i = parent[i]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int i = node; i != -1; i = parent[i]) {
+            path[--length] = i;
+        }
+        return path;
+    }
+}
@@ -0,0 +1,70 @@
+import java.util.*;
+
+//Randomized Kruskal. Every inner wall is listed once as the node left of or above it plus a bit for which wall, the list is shuffled,
+//and each wall is opened if the nodes on its two sides are not connected yet according to a union-find over flat indices. Like
+//Wilson's it draws from all spanning trees without the walk's bias, though not uniformly. Needs about 12 bytes per node
+public class KruskalAlgorithm implements MazeAlgorithm {
+
+    public void carve(MazeGrid maze, SplittableRandom rand) {
+        int rows = maze.getRows();
+        int cols = maze.getCols();
+        long wallCount = (long) rows * (cols - 1) + (long) (rows - 1) * cols;
+        if (wallCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Maze too large for Kruskal: " + rows + "x" + cols);
+        }
+
+        // node * 2 for its right wall, node * 2 + 1 for its bottom wall
+        int[] walls = new int[(int) wallCount];
+        int count = 0;
+        for (int node = 0; node < maze.size(); node++) {
+            if (node % cols < cols - 1) {
+                walls[count++] = node << 1;
+            }
+            if (node < maze.size() - cols) {
+                walls[count++] = node << 1 | 1;
+            }
+        }
+        for (int i = count - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int swap = walls[i];
+            walls[i] = walls[j];
+            walls[j] = swap;
+        }
+
+        int[] parent = new int[maze.size()];
+        for (int node = 0; node < parent.length; node++) {
+            parent[node] = node;
+        }
+        int joins = 0;
+        for (int i = 0; i < count && joins < maze.size() - 1; i++) {
+            int node = walls[i] >>> 1;
+            boolean down = (walls[i] & 1) != 0;
+            if (union(parent, node, down ? node + cols : node + 1)) {
+                maze.open(node, down ? MazeGrid.DOWN : MazeGrid.RIGHT);
+                joins++;
+            }
+        }
+    }
+
+    private static boolean union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA == rootB) {
+            return false;
+        }
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        } else {
+            parent[rootA] = rootB;
+        }
+        return true;
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+}
@@ -0,0 +1,22 @@
+import java.util.*;
+
+//A way of carving a perfect maze into an empty MazeGrid. MazeGenerator uses its own random walk unless one of these is named with
+//--algorithm. Implementations keep no state between calls, so one instance can carve several tiles in parallel
+public interface MazeAlgorithm {
+    //Opens walls in an empty grid until every node is connected to every other by exactly one path
+    void carve(MazeGrid maze, SplittableRandom rand);
+
+    //Looks up an algorithm by its command line name, the random walk is "walk" and has no MazeAlgorithm
+    static MazeAlgorithm forName(String name) {
+        switch (name.toLowerCase()) {
+            case "wilson":
+                return new WilsonAlgorithm();
+            case "kruskal":
+                return new KruskalAlgorithm();
+            case "eller":
+                return new EllerAlgorithm();
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + name + " (use walk, wilson, kruskal or eller)");
+        }
+    }
+}
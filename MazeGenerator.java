@@ -1,25 +1,54 @@
 import java.util.*;
+import java.util.stream.*;
 import java.io.*;
 
 public class MazeGenerator {
     private int rows;
     private int cols;
-    private int[][] maze; //store wall info 
-    private int[][] currDistArr; // store the dist from the start node for each node
-    private boolean[][] visited; // store whether a node has been visited 
-    private Random rand = new Random();
+    private MazeGrid maze; //store wall info 
+    private int[] currDistArr; // store the dist from the start node for each node, null when the endpoints come from a double sweep
+    private boolean diameterEndpoints; // put start and end at the two ends of the longest path instead of walk distances
+    private MazeAlgorithm algorithm; // carves the maze, or each tile, instead of the random walk when set
+    private int maxDistance; // largest walk distance so far and the node that has it, kept up to date as the walk carves
+    private int farthestNode;
+    private CellSet visited; // store whether a node has been visited 
+    private final SplittableRandom rand; // one per generator, so generators on different threads never share it
     private int startNode;
     private int endNode;
-    private int currDist;
-    private boolean allVisited = false;
+    private int nextUnvisited = 0; // cursor to the first node that may still be unvisited
+    private int firstVisited = Integer.MAX_VALUE; // earliest visited node in row order
     private int count = 0;
 
     public MazeGenerator(int rows, int cols) {
+        this(rows, cols, new SplittableRandom());
+    }
+
+    //the same seed and size always give the same maze, tiled or not
+    public MazeGenerator(int rows, int cols, long seed) {
+        this(rows, cols, new SplittableRandom(seed));
+    }
+
+    //visited and currDistArr are only needed by the random walk, so they are created when it runs rather than for tiled mazes
+    private MazeGenerator(int rows, int cols, SplittableRandom rand) {
         this.rows = rows;
         this.cols = cols;
-        this.maze = new int[rows][cols];
-        this.visited = new boolean[rows][cols];
-        this.currDistArr = new int[rows][cols];
+        this.rand = rand;
+        this.maze = new MazeGrid(rows, cols);
+    }
+
+    public MazeGrid getMaze() {
+        return maze;
+    }
+
+    //With diameter endpoints the start and end are the two ends of the longest path in the finished maze, found with a BFS to the
+    //farthest node from anywhere and a second BFS from there. In a tree that is always a longest path, so it gives the hardest pair
+    public void setDiameterEndpoints(boolean diameterEndpoints) {
+        this.diameterEndpoints = diameterEndpoints;
+    }
+
+    //Carves with another algorithm instead of the random walk, null goes back to the walk
+    public void setAlgorithm(MazeAlgorithm algorithm) {
+        this.algorithm = algorithm;
     }
 
     public void generateMaze() {
@@ -28,159 +57,424 @@ public class MazeGenerator {
         int startCol = rand.nextInt(cols);
         startNode = startRow * cols + startCol + 1;
 
-        // Perform the random walk
+        // Another algorithm carves the whole maze first, then a BFS from the start finds the farthest node
+        visited = new CellSet(maze.size());
+        if (algorithm != null) {
+            algorithm.carve(maze, rand);
+            if (diameterEndpoints) {
+                setDiameter(startNode - 1);
+                return;
+            }
+            endNode = distancesFrom(maze, startNode - 1, null, visited, new int[maze.size()]) + 1;
+            maze.setStart(startNode - 1);
+            maze.setEnd(endNode - 1);
+            return;
+        }
+
+        // Perform the random walk, the walk distances are only needed when they pick the end node
+        if (diameterEndpoints) {
+            randomWalk(startRow, startCol);
+            setDiameter(startNode - 1);
+            return;
+        }
+        currDistArr = new int[maze.size()];
+        maxDistance = 0;
+        farthestNode = startNode - 1; // a 1x1 maze ends where it starts
         randomWalk(startRow, startCol);
 
-        // Find the farthest node from the starting node
-        int maxDistance = 0;
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (currDistArr[i][j] > maxDistance) {
-                    maxDistance = currDistArr[i][j];
-                    endNode = i * cols + j + 1;
+        // The walk keeps track of the farthest node from the starting node as it goes
+        endNode = farthestNode + 1;
+        maze.setStart(startNode - 1);
+        maze.setEnd(endNode - 1);
+    }
+
+    //Double sweep over the finished maze, the farthest node from any node is one end of a longest path and the farthest node from
+    //that is the other. Reuses the visited set of the walk, so the only thing the size of the maze it allocates is one BFS queue,
+    //shared by both sweeps
+    private void setDiameter(int from) {
+        if (visited == null) {
+            visited = new CellSet(maze.size());
+        }
+        int[] queue = new int[maze.size()];
+        int first = distancesFrom(maze, from, null, visited, queue);
+        int second = distancesFrom(maze, first, null, visited, queue);
+        startNode = first + 1;
+        endNode = second + 1;
+        maze.setStart(first);
+        maze.setEnd(second);
+    }
+
+    //Generates the maze in square tiles of tileSize nodes a side. A random spanning tree over the tiles is drawn first, with one
+    //passage on the shared border for each tree edge. Then every tile is carved by its own random walk in parallel on the fork/join
+    //pool. Each tile is a perfect maze and the tiles are joined by a tree, so the whole maze is perfect too. Inside a tile every
+    //path from the start enters through the passage from its parent tile, so each task also runs a BFS from that entry to get
+    //distances within the tile. The tile offsets are then added up along the tree to find the farthest node for the end node
+    public void generateMazeTiled(int tileSize) {
+        int tileRows = (rows + tileSize - 1) / tileSize;
+        int tileCols = (cols + tileSize - 1) / tileSize;
+        int tiles = tileRows * tileCols;
+
+        // Select a random starting node, its tile is the root of the tile tree
+        int start = rand.nextInt(rows) * cols + rand.nextInt(cols);
+        int rootTile = (start / cols / tileSize) * tileCols + (start % cols) / tileSize;
+
+        // Randomized DFS over the tiles, recording each tile's parent and the passage into it as a pair of nodes,
+        // the node on the parent side and the node on this tile's side, the root tile is entered at the start node
+        int[] parentTile = new int[tiles];
+        int[] exitNode = new int[tiles];
+        int[] entryNode = new int[tiles];
+        int[] order = new int[tiles]; // tiles in the order they joined the tree, parents before children
+        Arrays.fill(parentTile, -2);
+        parentTile[rootTile] = -1;
+        entryNode[rootTile] = start;
+        order[0] = rootTile;
+        int[] stack = new int[tiles];
+        int top = 0, joined = 1;
+        stack[top++] = rootTile;
+        int[] options = new int[4];
+        while (top > 0) {
+            int tile = stack[top - 1];
+            int tileRow = tile / tileCols, tileCol = tile % tileCols;
+            int count = 0;
+            if (tileRow > 0 && parentTile[tile - tileCols] == -2) {
+                options[count++] = tile - tileCols;
+            }
+            if (tileCol < tileCols - 1 && parentTile[tile + 1] == -2) {
+                options[count++] = tile + 1;
+            }
+            if (tileRow < tileRows - 1 && parentTile[tile + tileCols] == -2) {
+                options[count++] = tile + tileCols;
+            }
+            if (tileCol > 0 && parentTile[tile - 1] == -2) {
+                options[count++] = tile - 1;
+            }
+            if (count == 0) {
+                top--;
+                continue;
+            }
+            int next = options[rand.nextInt(count)];
+            parentTile[next] = tile;
+            if (next / tileCols == tileRow) { // side by side, pick a row along the shared border
+                int row = tileRow * tileSize + rand.nextInt(Math.min(tileSize, rows - tileRow * tileSize));
+                int border = Math.max(tileCol, next % tileCols) * tileSize; // first column of the right hand tile
+                exitNode[next] = row * cols + (next == tile + 1 ? border - 1 : border);
+                entryNode[next] = row * cols + (next == tile + 1 ? border : border - 1);
+            } else { // one above the other, pick a column along the shared border
+                int col = tileCol * tileSize + rand.nextInt(Math.min(tileSize, cols - tileCol * tileSize));
+                int border = Math.max(tileRow, next / tileCols) * tileSize; // first row of the lower tile
+                exitNode[next] = (next == tile + tileCols ? border - 1 : border) * cols + col;
+                entryNode[next] = (next == tile + tileCols ? border : border - 1) * cols + col;
+            }
+            order[joined++] = next;
+            stack[top++] = next;
+        }
+
+        // Carve and measure every tile in parallel, each with its own generator split from this one in tile order,
+        // so the maze does not depend on which thread gets which tile
+        SplittableRandom[] tileRandoms = new SplittableRandom[tiles];
+        for (int i = 0; i < tiles; i++) {
+            tileRandoms[i] = rand.split();
+        }
+        int[] exitDist = new int[tiles]; // distance from the parent tile's entry to the passage into this tile
+        int[] farDist = new int[tiles]; // largest distance from the entry within each tile
+        int[] farNode = new int[tiles];
+        IntStream.range(0, tiles).parallel().forEach(tile -> {
+            int firstRow = tile / tileCols * tileSize, firstCol = tile % tileCols * tileSize;
+            int height = Math.min(tileSize, rows - firstRow), width = Math.min(tileSize, cols - firstCol);
+            MazeGenerator local = new MazeGenerator(height, width, tileRandoms[tile]);
+            local.visited = new CellSet(local.maze.size());
+            if (!diameterEndpoints) {
+                local.currDistArr = new int[local.maze.size()];
+            }
+            if (algorithm != null) {
+                algorithm.carve(local.maze, local.rand);
+            } else {
+                local.randomWalk(local.rand.nextInt(height), local.rand.nextInt(width));
+            }
+            if (diameterEndpoints) { // the endpoints come from the whole maze afterwards, so the distances within the tile are not needed
+                maze.copyTile(local.maze, firstRow, firstCol);
+                return;
+            }
+
+            // BFS from the entry over the finished tile, reusing the walk's arrays
+            int entry = (entryNode[tile] / cols - firstRow) * width + entryNode[tile] % cols - firstCol;
+            int[] dist = local.currDistArr;
+            int last = distancesFrom(local.maze, entry, dist, local.visited, new int[local.maze.size()]);
+            farDist[tile] = dist[last];
+            farNode[tile] = (firstRow + last / width) * cols + firstCol + last % width;
+
+            // Record the distance to the passage into each child tile, their parent side nodes lie in this tile
+            int tileRow = tile / tileCols, tileCol = tile % tileCols;
+            int[] neighbours = {tileRow > 0 ? tile - tileCols : -1, tileCol < tileCols - 1 ? tile + 1 : -1,
+                tileRow < tileRows - 1 ? tile + tileCols : -1, tileCol > 0 ? tile - 1 : -1};
+            for (int child : neighbours) {
+                if (child >= 0 && parentTile[child] == tile) {
+                    int exit = (exitNode[child] / cols - firstRow) * width + exitNode[child] % cols - firstCol;
+                    exitDist[child] = dist[exit];
+                }
+            }
+            maze.copyTile(local.maze, firstRow, firstCol);
+        });
+
+        // Open the passages between tiles and add up the offsets from the root, parents come before children in order
+        int[] offset = new int[tiles];
+        int maxDistance = -1;
+        for (int i = 0; i < tiles; i++) {
+            int tile = order[i];
+            if (parentTile[tile] != -1) {
+                int exit = exitNode[tile], entry = entryNode[tile];
+                if (entry / cols == exit / cols) {
+                    maze.open(Math.min(exit, entry), MazeGrid.RIGHT);
+                } else {
+                    maze.open(Math.min(exit, entry), MazeGrid.DOWN);
+                }
+                offset[tile] = offset[parentTile[tile]] + exitDist[tile] + 1;
+            }
+            if (offset[tile] + farDist[tile] > maxDistance) {
+                maxDistance = offset[tile] + farDist[tile];
+                endNode = farNode[tile] + 1;
+            }
+        }
+        startNode = start + 1;
+        maze.setStart(start);
+        maze.setEnd(endNode - 1);
+        if (diameterEndpoints) {
+            setDiameter(start);
+        }
+    }
+
+    //BFS over a finished maze from one node, filling dist for every node reached unless it is null. seen is cleared first and used as the
+    //visited set, and queue needs room for every node so callers running several searches can share one. Returns the last node taken
+    //from the queue, which is the farthest from the start since BFS goes in order of distance
+    private static int distancesFrom(MazeGrid grid, int start, int[] dist, CellSet seen, int[] queue) {
+        int width = grid.getCols();
+        int[] next = new int[4];
+        int head = 0, tail = 0;
+        seen.clear();
+        seen.add(start);
+        if (dist != null) {
+            dist[start] = 0;
+        }
+        queue[tail++] = start;
+        while (head < tail) {
+            int node = queue[head++];
+            //checks the right and bottom walls of the node, then the bottom wall of the node above and the right wall of the node to the left
+            int count = 0;
+            if (grid.isRightOpen(node)) {
+                next[count++] = node + 1;
+            }
+            if (grid.isDownOpen(node)) {
+                next[count++] = node + width;
+            }
+            if (node >= width && grid.isDownOpen(node - width)) {
+                next[count++] = node - width;
+            }
+            if (node % width > 0 && grid.isRightOpen(node - 1)) {
+                next[count++] = node - 1;
+            }
+            for (int i = 0; i < count; i++) {
+                if (!seen.contains(next[i])) {
+                    seen.add(next[i]);
+                    if (dist != null) {
+                        dist[next[i]] = dist[node] + 1;
+                    }
+                    queue[tail++] = next[i];
                 }
             }
         }
+        return queue[tail - 1];
     }
 
+    //Walks from the given node, carving into a random unvisited neighbour each step. At a dead end it hunts for the next unvisited node
+    //and restarts the walk from a visited node next to it. Runs as a loop so the stack depth stays constant regardless of maze size
+    //steps and restarts are counted in locals and only handed to Metrics once the walk is done
     private void randomWalk(int row, int col) {
-        visited[row][col] = true;
+        int node = row * cols + col;
+        markVisited(node);
 
         int nextRow = 0;
         int nextCol = 0;
-        while(allVisited==false){
+        int next = 0;
+        long steps = 0;
+        long restarts = 0;
+        while (true) {
+            steps++;
             int direction = rand.nextInt(4);
             switch (direction) {
                 case 0: //up, If we are moving above, current node walls dont change, next node opens from below (value 2)
-                    if (row > 0 && !visited[row-1][col]) {
+                    if (row > 0 && !visited.contains(node - cols)) {
                         nextRow = row - 1;
                         nextCol = col;
-                        maze[nextRow][nextCol] = 2;
+                        next = node - cols;
+                        maze.open(next, MazeGrid.DOWN);
                         break;
                     }
-                case 1: //right, if we are moving to the right check if below is open, if so go to 3, else to 1 
-                    if (col < visited[row].length - 1 && !visited[row][col+1]) {
+                case 1: //right, if we are moving to the right the right wall opens, keeping below open if it already is (value 1 or 3)
+                    if (col < cols - 1 && !visited.contains(node + 1)) {
                         nextRow = row;
                         nextCol = col + 1;
-                        if (maze[row][col] == 2){
-                            maze[row][col] = 3;
-                        } else {
-                            maze[row][col] = 1;
-                        }
+                        next = node + 1;
+                        maze.open(node, MazeGrid.RIGHT);
                         break;
                     }
-                case 2: //down, If we are moving below check if right side is open (value 1), if so, value goes to 3, else to 2
-                    if (row < visited.length - 1 && !visited[row+1][col]) {
+                case 2: //down, If we are moving below the below wall opens, keeping right open if it already is (value 2 or 3)
+                    if (row < rows - 1 && !visited.contains(node + cols)) {
                         nextRow = row + 1;
                         nextCol = col;
-                        if (maze[row][col] == 1) {
-                            maze[row][col] = 3;
-                        } else {
-                            maze[row][col] = 2;
-                        }
+                        next = node + cols;
+                        maze.open(node, MazeGrid.DOWN);
                         break;
                     }
                 case 3: //left, If we are moving to the left, curr node stays, next node opens to right
-                    if (col > 0 && !visited[row][col-1]) {
+                    if (col > 0 && !visited.contains(node - 1)) {
                         nextRow = row;
                         nextCol = col - 1;
-                        maze[nextRow][nextCol] = 1; 
+                        next = node - 1;
+                        maze.open(next, MazeGrid.RIGHT);
                         break;
                     }
-                default: //runs if a neighbour hasnt been found, checks to see if there is no current neighbours, if so, then it checks to see if all nodes are visited, if not then it finds the closest node from the next unvisited node and starts walking again 
-                    if ((row > 0 && !visited[row-1][col]) || (col < visited[row].length - 1 && !visited[row][col+1]) 
-                    || (row < visited.length - 1 && !visited[row+1][col]) || (col > 0 && !visited[row][col-1])){
+                default: //runs if a neighbour hasnt been found, if there are still unvisited neighbours we retry from the same node,
+                    //otherwise we move the cursor on to the next unvisited node and restart from a visited node beside it
+                    if ((row > 0 && !visited.contains(node - cols)) || (col < cols - 1 && !visited.contains(node + 1)) 
+                    || (row < rows - 1 && !visited.contains(node + cols)) || (col > 0 && !visited.contains(node - 1))){
                         nextRow = row;
                         nextCol = col;
+                        next = node;
                         break;
-                    } else{
-                        allVisited = true;
-                        outerOuterLoop:
-                        for (int i = 0; i < visited.length; i++) {
-                            for (int j = 0; j < visited[i].length; j++) {
-                                if (!visited[i][j]) {
-                                    allVisited = false;
-                                    if (j>0){//not the first col
-                                        nextRow = i;
-                                        nextCol = j-1;
-                                    } else if (i>0){//make sure not the first node 
-                                        nextRow = i-1;
-                                        nextCol = j;
-                                    } else {//if its the first node we need to reloop and find the next visited node to go from
-                                        outerLoop:
-                                        for (int k = 0; k < visited.length; k++) {
-                                            for (int l = 0; l < visited[k].length; l++) {
-                                                if (visited[k][l]) {
-                                                    nextRow = k;
-                                                    nextCol = l;
-                                                    break outerLoop;
-                                                }
-                                            }
-                                        }
-                                    }
-                                    break outerOuterLoop;
-                                }
-                            }
-                        }
-                        if (allVisited) {
-                            nextRow = row;
-                            nextCol = col;
-                            break;
-                        }
                     }
+                    //visited nodes never become unvisited so the cursor only moves forward, the hunt is linear over the whole walk
+                    nextUnvisited = visited.nextAbsent(nextUnvisited);
+                    if (nextUnvisited == maze.size()) {
+                        Metrics.count("generator_walk_steps", steps);
+                        Metrics.count("generator_walk_restarts", restarts);
+                        return;
+                    }
+                    restarts++;
+                    int i = nextUnvisited / cols;
+                    int j = nextUnvisited % cols;
+                    if (j > 0) {//not the first col, the node to the left comes earlier so it has been visited
+                        nextRow = i;
+                        nextCol = j-1;
+                    } else if (i > 0) {//first col, the node above comes earlier so it has been visited
+                        nextRow = i-1;
+                        nextCol = j;
+                    } else {//if its the first node we go from the first visited node, the node before it (left or above) is still unvisited
+                        nextRow = firstVisited / cols;
+                        nextCol = firstVisited % cols;
+                    }
+                    next = nextRow * cols + nextCol;
             }
-            if (visited[nextRow][nextCol] == false){
-                currDist = currDistArr[row][col];
-                currDist += 1;
-                currDistArr[nextRow][nextCol] = currDist;
+            if (!visited.contains(next)) {
+                markVisited(next);
+                if (currDistArr != null) {
+                    // ties go to the lowest node, the same end node a scan in row order would pick
+                    int distance = currDistArr[node] + 1;
+                    currDistArr[next] = distance;
+                    if (distance > maxDistance || (distance == maxDistance && next < farthestNode)) {
+                        maxDistance = distance;
+                        farthestNode = next;
+                    }
+                }
             }
             // Continue the random walk from the selected neighbor
-            randomWalk(nextRow, nextCol);
+            row = nextRow;
+            col = nextCol;
+            node = next;
         }
     }
 
-    //Prints the maze in the required format
-    public void printMaze(PrintStream out) {
-        out.print(rows + ":" + cols + ":" + startNode + ":" + endNode + ":");
-        System.out.print(rows + ":" + cols + ":" + startNode + ":" + endNode + ":");
-
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                out.print(maze[i][j]);
-                System.out.print(maze[i][j]);
-            }
+    //Marks a node as visited and keeps track of the earliest visited node for restarts when the first node is still unvisited
+    private void markVisited(int node) {
+        visited.add(node);
+        if (node < firstVisited) {
+            firstVisited = node;
         }
     }
 
+    //Prints the maze in the required format
+    public void printMaze(MazeWriter out) throws IOException {
+        out.writeMaze(maze);
+    }
+
     public static void main(String[] args) {
-        if (args.length != 3) {
-            System.err.println("Use Format: java MazeGenerator <rows> <cols> <output_file>");
+        boolean echo = false;
+        boolean binary = false;
+        int tileSize = 0;
+        Long seed = null;
+        boolean diameter = false;
+        String algorithmName = "walk";
+        boolean validFlags = true;
+        for (int i = 3; i < args.length; i++) {
+            if (args[i].equals("--echo")) {
+                echo = true;
+            } else if (args[i].equals("--binary")) {
+                binary = true;
+            } else if (args[i].equals("--tile") && i + 1 < args.length && args[i + 1].matches("[1-9][0-9]*")) {
+                tileSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--seed") && i + 1 < args.length && args[i + 1].matches("-?[0-9]+")) {
+                seed = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--endpoints") && i + 1 < args.length && args[i + 1].matches("walk|diameter")) {
+                diameter = args[++i].equals("diameter");
+            } else if (args[i].equals("--algorithm") && i + 1 < args.length && args[i + 1].matches("walk|wilson|kruskal|eller")) {
+                algorithmName = args[++i];
+            } else {
+                validFlags = false;
+            }
+        }
+        if (args.length < 3 || !validFlags) {
+            System.err.println("Use Format: java MazeGenerator <rows> <cols> <output_file> [--echo] [--binary] [--tile <size>] [--seed <n>] [--endpoints walk|diameter] [--algorithm walk|wilson|kruskal|eller]");
             System.exit(1);
         }
 
-        File file = new File(args[2]);
-        
-
         try {
             int rows = Integer.parseInt(args[0]);
             int cols = Integer.parseInt(args[1]);
 
-            MazeGenerator generator = new MazeGenerator(rows, cols);
+            // Eller's algorithm writes the text format a row at a time without building the maze, from the top left to the bottom right
+            // corner. The binary format, tiles and diameter endpoints all need the whole maze so they carve it in memory instead
+            if (algorithmName.equals("eller") && !binary && tileSize == 0 && !diameter) {
+                try (MazeWriter out = MazeWriter.open(args[2], false, echo)) {
+                    EllerAlgorithm.write(rows, cols, seed == null ? new SplittableRandom() : new SplittableRandom(seed), out);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+                return;
+            }
+
+            // --seed makes the maze reproducible, the same seed always writes the same file
+            MazeGenerator generator = seed == null ? new MazeGenerator(rows, cols) : new MazeGenerator(rows, cols, seed);
+            // --endpoints diameter puts the start and end at the two ends of the longest path, walk keeps the walk start and its farthest node
+            generator.setDiameterEndpoints(diameter);
+            // --algorithm picks what carves the maze, the random walk by default
+            if (!algorithmName.equals("walk")) {
+                generator.setAlgorithm(MazeAlgorithm.forName(algorithmName));
+            }
             
             try{
-                generator.generateMaze();
+                // --tile carves square tiles of that many nodes a side in parallel
+                if (tileSize > 0) {
+                    generator.generateMazeTiled(tileSize);
+                } else {
+                    generator.generateMaze();
+                }
             } catch (OutOfMemoryError e){
                 System.err.println("Error: Unable to allocate required memory for the maze.");
                 System.exit(1);
-            } catch (StackOverflowError e) {
-                System.err.println("Error: Stack overflow. The maze size may be too large for recursion.");
-                System.exit(1);
             }
             
-            try (FileOutputStream fos = new FileOutputStream(file); PrintStream ps = new PrintStream(fos)) {
-                generator.printMaze(ps);
-            } catch (Exception e) {
-                e.printStackTrace();
+            // --binary writes the packed binary format, otherwise --echo mirrors the text format to the console as it is written
+            if (binary) {
+                try {
+                    generator.getMaze().writeBinary(args[2]);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            } else {
+                try (MazeWriter out = MazeWriter.open(args[2], false, echo)) {
+                    generator.printMaze(out);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
             }
         } catch (NumberFormatException e) {
             System.err.println("Invalid input: rows and cols must be integers");
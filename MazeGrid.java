@@ -0,0 +1,302 @@
+import java.io.*;
+import java.lang.invoke.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.zip.*;
+
+//Packed maze shared by the generator, solver and verifier. Each node keeps 2 bits of wall data (1 = right open, 2 = below open, 3 = both)
+//and 32 nodes are packed into every long. Nodes are addressed by their flat index row * cols + col, one less than the node number in maze files
+public class MazeGrid {
+    public static final int RIGHT = 1;
+    public static final int DOWN = 2;
+    private static final long MAP_WINDOW = 1L << 30; // largest slice of a file mapped at once
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    //Binary format: a 32 byte header of big endian ints (magic "MAZB", version, rows, cols, start node, end node, bytes per row,
+    //CRC32 of the row data) followed by the rows. Each row starts on a byte boundary with 4 nodes per byte, lowest bits first,
+    //so row r is at BINARY_HEADER + r * bytes per row and can be mapped on its own
+    static final int BINARY_MAGIC = 0x4D415A42;
+    static final int BINARY_VERSION = 1;
+    static final int BINARY_HEADER = 32;
+
+    private final int rows;
+    private final int cols;
+    private final int size;
+    private final long[] walls;
+    private int start; // flat index of the start node
+    private int end; // flat index of the end node
+
+    public MazeGrid(int rows, int cols) {
+        long cells = (long) rows * cols;
+        if (rows <= 0 || cols <= 0 || cells > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Unsupported maze size: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.size = (int) cells;
+        this.walls = new long[(size + 31) >>> 5];
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    //number of nodes in the maze
+    public int size() {
+        return size;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public void setStart(int start) {
+        this.start = start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    public void setEnd(int end) {
+        this.end = end;
+    }
+
+    //wall value of a node in the 0-3 encoding used by the maze files
+    public int get(int node) {
+        return (int) (walls[node >>> 5] >>> ((node & 31) << 1)) & 3;
+    }
+
+    public void set(int node, int value) {
+        int shift = (node & 31) << 1;
+        walls[node >>> 5] = (walls[node >>> 5] & ~(3L << shift)) | ((long) (value & 3) << shift);
+    }
+
+    //opens the right (1) and/or below (2) wall of a node, keeping any wall already open
+    public void open(int node, int bits) {
+        walls[node >>> 5] |= (long) (bits & 3) << ((node & 31) << 1);
+    }
+
+    //ORs the walls of a smaller maze into this one with its top left node at (firstRow, firstCol). A word can hold nodes from
+    //neighbouring tiles, so the bits for each word are gathered first and merged with one atomic OR, which lets tiles be copied in parallel
+    public void copyTile(MazeGrid tile, int firstRow, int firstCol) {
+        int node = 0;
+        for (int row = 0; row < tile.rows; row++) {
+            int target = (firstRow + row) * cols + firstCol;
+            int targetEnd = target + tile.cols;
+            while (target < targetEnd) {
+                int word = target >>> 5;
+                long bits = 0;
+                do {
+                    bits |= (long) tile.get(node++) << ((target & 31) << 1);
+                    target++;
+                } while (target < targetEnd && (target & 31) != 0);
+                if (bits != 0) {
+                    WORDS.getAndBitwiseOr(walls, word, bits);
+                }
+            }
+        }
+    }
+
+    public boolean isRightOpen(int node) {
+        return (walls[node >>> 5] & (1L << ((node & 31) << 1))) != 0;
+    }
+
+    public boolean isDownOpen(int node) {
+        return (walls[node >>> 5] & (2L << ((node & 31) << 1))) != 0;
+    }
+
+    //Reads a maze in the binary format or the rows:cols:start:end:<digits> format, whichever the file starts with. The text is memory mapped a window at a time and the header and
+    //digits are decoded straight from the mapped bytes into the packed words, so no String is built however large the maze is
+    public static MazeGrid read(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long length = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(length, MAP_WINDOW));
+            if (length >= BINARY_HEADER && buffer.getInt(0) == BINARY_MAGIC) {
+                return readBinary(channel, filename, 0, -1);
+            }
+
+            long[] header = new long[4];
+            int position = readHeader(buffer, header, filename);
+            for (long value : header) {
+                if (value > Integer.MAX_VALUE) {
+                    throw new IOException("Invalid maze header in " + filename);
+                }
+            }
+
+            MazeGrid grid = new MazeGrid((int) header[0], (int) header[1]);
+            grid.setStart((int) header[2] - 1);
+            grid.setEnd((int) header[3] - 1);
+
+            // Decode one digit per node, filling each long a node at a time and storing it once 32 nodes are in
+            long offset = position;
+            int node = 0;
+            long word = 0;
+            while (node < grid.size) {
+                if (offset >= length) {
+                    throw new IOException("Maze file " + filename + " ends after " + node + " of " + grid.size + " nodes");
+                }
+                int count = (int) Math.min(grid.size - node, Math.min(length - offset, MAP_WINDOW));
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, count);
+                for (int i = 0; i < count; i++) {
+                    int value = buffer.get(i) - '0';
+                    if ((value & ~3) != 0) {
+                        throw new IOException("Invalid wall value at node " + (node + 1) + " in " + filename);
+                    }
+                    word |= (long) value << ((node & 31) << 1);
+                    if ((node & 31) == 31) {
+                        grid.walls[node >>> 5] = word;
+                        word = 0;
+                    }
+                    node++;
+                }
+                offset += count;
+            }
+            if ((node & 31) != 0) {
+                grid.walls[node >>> 5] = word;
+            }
+            return grid;
+        }
+    }
+
+    //Parses the rows:cols:start:end: header of a text maze into header, each number ends with a ':'. The numbers are longs so
+    //mazes too large to load can still be read in place, returns the position of the first digit after the header
+    static int readHeader(ByteBuffer buffer, long[] header, String filename) throws IOException {
+        int position = 0;
+        for (int i = 0; i < header.length; i++) {
+            long value = 0;
+            int digits = 0;
+            while (position < buffer.limit() && buffer.get(position) != ':') {
+                int digit = buffer.get(position++) - '0';
+                if (digit < 0 || digit > 9 || ++digits > 18) {
+                    throw new IOException("Invalid maze header in " + filename);
+                }
+                value = value * 10 + digit;
+            }
+            if (position == buffer.limit() || digits == 0) {
+                throw new IOException("Invalid maze header in " + filename);
+            }
+            header[i] = value;
+            position++;
+        }
+        return position;
+    }
+
+    //Reads rowCount rows starting at firstRow from a binary maze file, mapping only those rows. The checksum covers the whole file
+    //so it is not checked here. Start and end are shifted into the band, or -1 if they fall outside it
+    public static MazeGrid readRows(String filename, int firstRow, int rowCount) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            return readBinary(channel, filename, firstRow, rowCount);
+        }
+    }
+
+    //Decodes a binary maze, the whole of it when rowCount is -1 (checking the CRC) or just a band of rows
+    private static MazeGrid readBinary(FileChannel channel, String filename, int firstRow, int rowCount) throws IOException {
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BINARY_HEADER);
+        int version = header.getInt(4);
+        int rows = header.getInt(8);
+        int cols = header.getInt(12);
+        int rowBytes = header.getInt(24);
+        if (version != BINARY_VERSION) {
+            throw new IOException("Unsupported maze format version " + version + " in " + filename);
+        }
+        if (rows <= 0 || cols <= 0 || rowBytes != (cols + 3) >>> 2
+                || channel.size() < BINARY_HEADER + (long) rows * rowBytes) {
+            throw new IOException("Invalid binary maze header in " + filename);
+        }
+        boolean whole = rowCount == -1;
+        if (whole) {
+            rowCount = rows;
+        } else if (firstRow < 0 || rowCount <= 0 || (long) firstRow + rowCount > rows) {
+            throw new IllegalArgumentException("Rows " + firstRow + " to " + ((long) firstRow + rowCount) + " are outside the maze");
+        }
+
+        MazeGrid grid = new MazeGrid(rowCount, cols);
+        long bandStart = (long) firstRow * cols;
+        long start = header.getInt(16) - 1L - bandStart;
+        long end = header.getInt(20) - 1L - bandStart;
+        grid.setStart(start >= 0 && start < grid.size ? (int) start : -1);
+        grid.setEnd(end >= 0 && end < grid.size ? (int) end : -1);
+
+        // Map whole rows at a time and pack the nodes of each row into the longs in order, 32 nodes per store
+        CRC32 crc = new CRC32();
+        int rowsPerWindow = (int) Math.max(1, Math.min(rowCount, MAP_WINDOW / rowBytes));
+        int node = 0;
+        long word = 0;
+        for (int row = 0; row < rowCount; row += rowsPerWindow) {
+            int windowRows = Math.min(rowsPerWindow, rowCount - row);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+                BINARY_HEADER + (long) (firstRow + row) * rowBytes, (long) windowRows * rowBytes);
+            if (whole) {
+                crc.update(buffer.duplicate());
+            }
+            for (int r = 0; r < windowRows; r++) {
+                int base = r * rowBytes;
+                for (int col = 0; col < cols; col++) {
+                    int value = (buffer.get(base + (col >>> 2)) >>> ((col & 3) << 1)) & 3;
+                    word |= (long) value << ((node & 31) << 1);
+                    if ((node & 31) == 31) {
+                        grid.walls[node >>> 5] = word;
+                        word = 0;
+                    }
+                    node++;
+                }
+            }
+        }
+        if ((node & 31) != 0) {
+            grid.walls[node >>> 5] = word;
+        }
+        if (whole && (int) crc.getValue() != header.getInt(28)) {
+            throw new IOException("Checksum mismatch in " + filename);
+        }
+        return grid;
+    }
+
+    //Writes the maze in the binary format, the CRC goes into the header once all rows are written
+    public void writeBinary(String filename) throws IOException {
+        int rowBytes = (cols + 3) >>> 2;
+        try (FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            CRC32 crc = new CRC32();
+            channel.position(BINARY_HEADER);
+            int node = 0;
+            for (int row = 0; row < rows; row++) {
+                for (int col = 0; col < cols; col += 4) {
+                    int packed = 0;
+                    for (int k = 0; k < 4 && col + k < cols; k++) {
+                        packed |= get(node++) << (k << 1);
+                    }
+                    buffer.put((byte) packed);
+                    if (!buffer.hasRemaining()) {
+                        writeBlock(channel, buffer, crc);
+                    }
+                }
+            }
+            writeBlock(channel, buffer, crc);
+
+            buffer.putInt(BINARY_MAGIC).putInt(BINARY_VERSION).putInt(rows).putInt(cols)
+                .putInt(start + 1).putInt(end + 1).putInt(rowBytes).putInt((int) crc.getValue());
+            buffer.flip();
+            channel.position(0);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    //Adds the buffered bytes to the checksum and writes them out, leaving the buffer empty
+    private static void writeBlock(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
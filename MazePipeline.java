@@ -0,0 +1,121 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+//Generates, solves and verifies a batch of mazes in one JVM. Each maze goes through all three stages in memory on one worker
+//of a fixed size thread pool, every worker with its own generator, strategy and verifier so no state is shared between them
+public class MazePipeline {
+    private final int threads;
+    private final String strategyName;
+    private final SplittableRandom seeds; // gives each maze its seed in submission order, so a seeded batch is the same whichever worker runs each maze
+    private final LongAdder generateNanos = new LongAdder();
+    private final LongAdder solveNanos = new LongAdder();
+    private final LongAdder verifyNanos = new LongAdder();
+    private final LongAdder mazes = new LongAdder();
+    private final LongAdder cells = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final Set<Thread> workers = ConcurrentHashMap.newKeySet(); // the pool threads that processed at least one maze
+
+    public MazePipeline(int threads, String strategyName, SplittableRandom seeds) {
+        this.threads = threads;
+        this.strategyName = strategyName;
+        this.seeds = seeds;
+    }
+
+    //Runs count mazes of each size, sizes are {rows, cols} pairs, and prints the throughput of each stage
+    public void run(int count, List<int[]> sizes) throws InterruptedException, ExecutionException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long startTime = System.nanoTime();
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int[] size : sizes) {
+                for (int i = 0; i < count; i++) {
+                    long seed = seeds.nextLong();
+                    results.add(pool.submit(() -> process(size[0], size[1], seed)));
+                }
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        long wallNanos = System.nanoTime() - startTime;
+
+        System.out.println("Mazes: " + mazes.sum() + ", cells: " + cells.sum() + ", failed verification: " + failures.sum());
+        printThroughput("Total", wallNanos);
+        // Stage times are summed over the workers, so divide by the workers that ran for the throughput the pool gets on that stage.
+        // A batch smaller than the pool never starts the rest of the threads
+        int used = Math.max(1, workers.size());
+        printThroughput("Generate", generateNanos.sum() / used);
+        printThroughput("Solve", solveNanos.sum() / used);
+        printThroughput("Verify", verifyNanos.sum() / used);
+    }
+
+    //Generate, solve and verify one maze, timing each stage
+    private void process(int rows, int cols, long seed) {
+        long time = System.nanoTime();
+        MazeGenerator generator = new MazeGenerator(rows, cols, seed);
+        generator.generateMaze();
+        MazeGrid maze = generator.getMaze();
+        long generated = System.nanoTime();
+
+        SolverStrategy strategy = SolverStrategy.forName(strategyName);
+        int[] path = strategy.solve(maze, maze.getStart(), maze.getEnd());
+        long solved = System.nanoTime();
+
+        boolean valid = path != null;
+        if (valid) {
+            MazeVerifier verifier = new MazeVerifier(maze, path);
+            valid = verifier.isPerfect() && verifier.isSolutionValid();
+        }
+        long verified = System.nanoTime();
+
+        generateNanos.add(generated - time);
+        solveNanos.add(solved - generated);
+        verifyNanos.add(verified - solved);
+        mazes.increment();
+        cells.add(maze.size());
+        workers.add(Thread.currentThread());
+        if (!valid) {
+            failures.increment();
+        }
+    }
+
+    private void printThroughput(String stage, long nanos) {
+        double seconds = Math.max(nanos, 1) / 1e9;
+        System.out.printf("%-8s %10.3f s %12.1f mazes/sec %15.0f cells/sec%n", stage, seconds, mazes.sum() / seconds, cells.sum() / seconds);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.out.println("Format: java MazePipeline <count> <rows>x<cols> [<rows>x<cols> ...] [--threads N] [--strategy bfs|dfs|astar|bidirectional] [--seed n]");
+            return;
+        }
+
+        int count = Integer.parseInt(args[0]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        String strategyName = "bfs";
+        SplittableRandom seeds = new SplittableRandom();
+        List<int[]> sizes = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--strategy") && i + 1 < args.length) {
+                strategyName = args[++i];
+            } else if (args[i].equals("--seed") && i + 1 < args.length) {
+                seeds = new SplittableRandom(Long.parseLong(args[++i]));
+            } else {
+                String[] size = args[i].toLowerCase().split("x");
+                if (size.length != 2) {
+                    System.out.println("Invalid size: " + args[i] + ", use <rows>x<cols>");
+                    return;
+                }
+                sizes.add(new int[]{Integer.parseInt(size[0]), Integer.parseInt(size[1])});
+            }
+        }
+        SolverStrategy.forName(strategyName); // fail before starting if the name is wrong
+
+        new MazePipeline(threads, strategyName, seeds).run(count, sizes);
+    }
+}
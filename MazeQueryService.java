@@ -0,0 +1,148 @@
+import java.io.*;
+import java.net.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+//Long lived solver for many path queries against the same mazes. Each maze is loaded and preprocessed into a MazeTree once and
+//the most recently used ones stay in memory, keyed by file. Queries are read one per line from stdin, or with --port from any
+//number of connections to a local socket:
+//  length <mazeFile> <a> <b>   number of steps between nodes a and b
+//  path <mazeFile> [<a> <b>]   steps and path in the solution file format, from start to end when no nodes are given
+//  quit                        ends the session
+//Node numbers are 1 based like in the maze and solution files
+public class MazeQueryService {
+    private final Map<String, MazeTree> cache; // access ordered, so the eldest entry is the least recently used
+
+    public MazeQueryService(int capacity) {
+        cache = new LinkedHashMap<String, MazeTree>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, MazeTree> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    //The preprocessed maze for a file, loading it on a miss. Loading runs outside the lock so queries on cached mazes are not held
+    //up behind a large load, two connections asking for the same new maze at once may both load it
+    MazeTree tree(String filename) throws IOException {
+        String key = Paths.get(filename).toAbsolutePath().normalize().toString();
+        synchronized (cache) {
+            MazeTree tree = cache.get(key);
+            if (tree != null) {
+                return tree;
+            }
+        }
+        MazeTree tree = new MazeTree(MazeGrid.read(filename));
+        synchronized (cache) {
+            cache.put(key, tree);
+        }
+        return tree;
+    }
+
+    //Answers queries from in until it ends or asks to quit, writing one line per query
+    public void serve(BufferedReader in, MazeWriter out) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (!answer(line.trim(), out)) {
+                break;
+            }
+        }
+        out.flush();
+    }
+
+    //Writes the answer to one query line, returns false for quit. Bad queries get an error line rather than ending the session
+    private boolean answer(String line, MazeWriter out) throws IOException {
+        if (line.isEmpty()) {
+            return true;
+        }
+        String[] parts = line.split("\\s+");
+        try {
+            if (parts[0].equals("quit")) {
+                return false;
+            } else if (parts[0].equals("length") && parts.length == 4) {
+                MazeTree tree = tree(parts[1]);
+                int distance = tree.distance(node(tree, parts[2]), node(tree, parts[3]));
+                if (distance == -1) {
+                    out.print("no path");
+                } else {
+                    out.print(distance);
+                }
+            } else if (parts[0].equals("path") && (parts.length == 2 || parts.length == 4)) {
+                MazeTree tree = tree(parts[1]);
+                int a = parts.length == 4 ? node(tree, parts[2]) : tree.getStart();
+                int b = parts.length == 4 ? node(tree, parts[3]) : tree.getEnd();
+                int[] path = a >= 0 && a < tree.size() && b >= 0 && b < tree.size() ? tree.path(a, b) : null;
+                if (path == null) {
+                    out.print("no path");
+                } else {
+                    out.print(path.length - 1).print(" : ").printPath(path);
+                }
+            } else {
+                out.print("error: unknown query, use length <mazeFile> <a> <b>, path <mazeFile> [<a> <b>] or quit");
+            }
+        } catch (NoSuchFileException e) {
+            out.print("error: no maze file " + e.getFile());
+        } catch (IOException | IllegalArgumentException e) {
+            out.print("error: " + e.getMessage());
+        }
+        out.println();
+        out.flush();
+        return true;
+    }
+
+    //flat index of a 1 based node number
+    private static int node(MazeTree tree, String number) {
+        long node = Long.parseLong(number);
+        if (node < 1 || node > tree.size()) {
+            throw new IllegalArgumentException("Node " + number + " is outside the maze");
+        }
+        return (int) (node - 1);
+    }
+
+    //Accepts connections on a loopback port, each one served on its own thread against the shared cache
+    public void listen(int port) throws IOException {
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+            System.out.println("Listening on " + server.getLocalSocketAddress());
+            while (true) {
+                Socket socket = server.accept();
+                pool.submit(() -> {
+                    try (Socket connection = socket;
+                         BufferedReader in = new BufferedReader(new InputStreamReader(connection.getInputStream()));
+                         MazeWriter out = new MazeWriter(Channels.newChannel(connection.getOutputStream()), false)) {
+                        serve(in, out);
+                    } catch (IOException e) {
+                        System.out.println("Connection error: " + e.getMessage());
+                    }
+                });
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = -1;
+        int capacity = 4;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--cache") && i + 1 < args.length) {
+                capacity = Math.max(1, Integer.parseInt(args[++i]));
+            } else {
+                System.out.println("Format: java MazeQueryService [--port N] [--cache mazes]");
+                return;
+            }
+        }
+
+        MazeQueryService service = new MazeQueryService(capacity);
+        if (port >= 0) {
+            service.listen(port);
+        } else {
+            MazeWriter console = MazeWriter.console();
+            service.serve(new BufferedReader(new InputStreamReader(System.in)), console);
+        }
+    }
+}
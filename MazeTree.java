@@ -0,0 +1,136 @@
+import java.util.*;
+
+//A maze preprocessed for repeated path queries. A BFS from the start node roots the maze as a tree with a parent and a depth for
+//every node, and each node also keeps one jump pointer to an ancestor (Myers' skew binary jump pointers). With those, the ancestor
+//at any depth and the lowest common ancestor of two nodes take O(log n) steps, for 12 bytes a node. The path between two nodes goes
+//up from each of them to their lowest common ancestor, so a length query is O(log n) and a path query O(log n + path length).
+//In a perfect maze that is the only path. If the maze has loops the paths still go through open walls but may not be the shortest,
+//and nodes that can't be reached from the start have no path to anything
+public class MazeTree {
+    private final int size;
+    private final int[] parent; // -1 for the root
+    private final int[] depth; // steps from the root, -1 when the node can't be reached
+    private final int[] jump; // an ancestor whose depth only depends on this node's depth, the root for the root
+    private final int start;
+    private final int end;
+
+    public MazeTree(MazeGrid maze) {
+        size = maze.size();
+        int cols = maze.getCols();
+        start = maze.getStart();
+        end = maze.getEnd();
+        parent = new int[size];
+        depth = new int[size];
+        jump = new int[size];
+        Arrays.fill(depth, -1);
+
+        // BFS reaches every parent before its children, so each jump pointer can be set as soon as the node is reached
+        int root = start >= 0 && start < size ? start : 0;
+        int[] queue = new int[size];
+        int head = 0, tail = 0;
+        parent[root] = -1;
+        depth[root] = 0;
+        jump[root] = root;
+        queue[tail++] = root;
+        int[] next = new int[4];
+        while (head < tail) {
+            int node = queue[head++];
+            int count = 0;
+            if (maze.isRightOpen(node)) {
+                next[count++] = node + 1;
+            }
+            if (maze.isDownOpen(node)) {
+                next[count++] = node + cols;
+            }
+            if (node >= cols && maze.isDownOpen(node - cols)) {
+                next[count++] = node - cols;
+            }
+            if (node % cols > 0 && maze.isRightOpen(node - 1)) {
+                next[count++] = node - 1;
+            }
+            for (int i = 0; i < count; i++) {
+                int child = next[i];
+                if (depth[child] != -1) {
+                    continue;
+                }
+                parent[child] = node;
+                depth[child] = depth[node] + 1;
+                // Jump twice as far as the parent's jump when the parent's last two jumps were the same length, otherwise one step
+                int j = jump[node];
+                jump[child] = depth[node] - depth[j] == depth[j] - depth[jump[j]] ? jump[j] : node;
+                queue[tail++] = child;
+            }
+        }
+    }
+
+    //number of nodes in the maze
+    public int size() {
+        return size;
+    }
+
+    public int getStart() {
+        return start;
+    }
+
+    public int getEnd() {
+        return end;
+    }
+
+    //Lowest common ancestor of two reachable nodes. The deeper one is lifted to the depth of the other, then both move up in step,
+    //taking their jump pointers whenever those still lead to different nodes
+    public int lca(int a, int b) {
+        if (depth[a] < depth[b]) {
+            int swap = a;
+            a = b;
+            b = swap;
+        }
+        a = ancestor(a, depth[b]);
+        while (a != b) {
+            if (jump[a] != jump[b]) {
+                a = jump[a];
+                b = jump[b];
+            } else {
+                a = parent[a];
+                b = parent[b];
+            }
+        }
+        return a;
+    }
+
+    //ancestor of a node at the given depth, which must not be below the node
+    private int ancestor(int node, int target) {
+        while (depth[node] > target) {
+            node = depth[jump[node]] >= target ? jump[node] : parent[node];
+        }
+        return node;
+    }
+
+    //number of steps between two nodes, -1 if there is no path
+    public int distance(int a, int b) {
+        if (depth[a] == -1 || depth[b] == -1) {
+            return -1;
+        }
+        return depth[a] + depth[b] - 2 * depth[lca(a, b)];
+    }
+
+    //Path from a to b as flat node indices, null if there is none. The part from a up to the common ancestor fills the path from
+    //the front and the part from b fills it from the back
+    public int[] path(int a, int b) {
+        int distance = distance(a, b);
+        if (distance == -1) {
+            return null;
+        }
+        int top = lca(a, b);
+        int[] path = new int[distance + 1];
+        int front = 0;
+        for (int node = a; node != top; node = parent[node]) {
+            path[front++] = node;
+        }
+        path[front] = top;
+        int back = distance;
+        for (int node = b; node != top; node = parent[node]) {
+            path[back--] = node;
+        }
+        return path;
+    }
+}
@@ -1,42 +1,55 @@
 import java.io.*;
 import java.util.*;
+import java.util.stream.*;
 
 public class MazeVerifier {
-    private int[][] maze;
-    private boolean[][] visited;
-    private int[] rowDirection = {-1, 0, 1, 0};
-    private int[] colDirection = {0, 1, 0, -1};
+    private MazeGrid maze;
+    private int bands = 0; // row bands checked in parallel, 0 picks one per processor for large mazes
     private int startNode, endNode;
     private int rows, cols;
-    private int[] solution;
+    private String solutionFileName; // read again only to print the partial path of an invalid solution
+    private int[] solution; // path given in memory, null when the solution came from a file
+    private CellSet onPath; // nodes of the solution that have been checked
+    private int current; // last node of the solution that has been checked
+    private long validNodes; // number of nodes of the solution checked before the first bad one
+    private boolean solutionValid;
+    private boolean mazeChecked = false;
+    private long allWalls, noWalls;
+    private boolean circularPath, allNodesVisited;
+
+    //Verifier for a maze and path already in memory, the path is given as flat node indices like the solvers return
+    public MazeVerifier(MazeGrid maze, int[] path) {
+        this.maze = maze;
+        rows = maze.getRows();
+        cols = maze.getCols();
+        startNode = maze.getStart() + 1;
+        endNode = maze.getEnd() + 1;
+        solution = path;
+        onPath = new CellSet(maze.size());
+        long pathTime = System.nanoTime();
+        solutionValid = checkPath(path);
+        Metrics.time("verifier_path_seconds", System.nanoTime() - pathTime);
+    }
 
     public MazeVerifier(String mazeFileName, String solutionFileName) {
         try {
             // Read the maze file
-            Scanner scanner = new Scanner(new File(mazeFileName));
-            String[] parameters = scanner.nextLine().split(":");
-            rows = Integer.parseInt(parameters[0]);
-            cols = Integer.parseInt(parameters[1]);
-            startNode = Integer.parseInt(parameters[2]);
-            endNode = Integer.parseInt(parameters[3]);
-            maze = new int[rows][cols];
-            visited = new boolean[rows][cols];
-            String connectivityList = parameters[4];
-            for (int i = 0; i < rows; i++) {
-                for (int j = 0; j < cols; j++) {
-                    maze[i][j] = Character.getNumericValue(connectivityList.charAt(i * cols + j));
-                }
-            }
+            long loadTime = System.nanoTime();
+            maze = MazeGrid.read(mazeFileName);
+            Metrics.time("verifier_load_seconds", System.nanoTime() - loadTime);
+            rows = maze.getRows();
+            cols = maze.getCols();
+            startNode = maze.getStart() + 1;
+            endNode = maze.getEnd() + 1;
 
-            // Read the solution file
-            scanner = new Scanner(new File(solutionFileName));
-            parameters = scanner.nextLine().split(":");
-            int steps = Integer.parseInt(parameters[0].trim()); // Trim spaces before parsing
-            String[] integerStrings = parameters[1].replaceAll("[()]", "").split(", "); // Extract integers within parentheses
-            solution = new int[steps + 1];
-            for (int i = 0; i < integerStrings.length; i++) {
-                solution[i] = Integer.parseInt(integerStrings[i].trim());
+            // Check the first solution in the file as it is read
+            this.solutionFileName = solutionFileName;
+            onPath = new CellSet(maze.size());
+            long pathTime = System.nanoTime();
+            try (PathReader reader = new PathReader(solutionFileName)) {
+                solutionValid = checkPath(reader);
             }
+            Metrics.time("verifier_path_seconds", System.nanoTime() - pathTime);
     
         } catch (IOException e) {
             System.out.println("Error reading file: " + e.getMessage());
@@ -45,61 +58,150 @@ public class MazeVerifier {
     
 
     public void verifyMaze() {
-        int allWalls = 0, noWalls = 0;
-        boolean circularPath = false, allNodesVisited = true;
+        checkMaze();
 
-        visited = new boolean[rows][cols];
+        // Display the maze with the solution
+        displayMazeWithSolution();
     
-        //Check cells to see if no walls or all walls
-        for (int i = 0; i < rows; i++) {
+        // Display the information on the screen
+        System.out.println("Number of cells having all four walls: " + allWalls);
+        System.out.println("Number of cells with none of the four walls: " + noWalls);
+        System.out.println("Is there a circular path in the maze? " + (circularPath ? "Yes" : "No"));
+        System.out.println("Can all nodes be visited from the starting node? " + (allNodesVisited ? "Yes" : "No"));
+    }
+
+    //True if the maze has no circular path and every node can be reached from the start
+    public boolean isPerfect() {
+        checkMaze();
+        return !circularPath && allNodesVisited;
+    }
+
+    //True if the solution walks through open walls from the start node to the end node, prints the partial path if not
+    public boolean isSolutionValid() {
+        return isValidSolution();
+    }
+
+    //Number of row bands to check in parallel, 1 checks the whole maze on the calling thread
+    public void setBands(int bands) {
+        this.bands = bands;
+    }
+
+    //Checks the whole maze in one pass over the nodes in row order with a union-find over flat indices. Each node is joined to its
+    //right and below neighbours through open walls, joining two nodes that are already connected means there is a circular path,
+    //and every node can be reached from the start exactly when nodes - 1 joins succeed. Nothing recurses so large mazes are fine.
+    //Row bands are scanned in parallel with joins inside the band only, then the walls between bands are joined in order
+    private void checkMaze() {
+        if (mazeChecked) {
+            return;
+        }
+        mazeChecked = true;
+        long time = System.nanoTime();
+
+        int bandCount = bands > 0 ? bands : (maze.size() >= 1 << 20 ? Runtime.getRuntime().availableProcessors() : 1);
+        bandCount = Math.max(1, Math.min(bandCount, rows));
+        int bandRows = (rows + bandCount - 1) / bandCount;
+        int[] parent = new int[maze.size()];
+        long[][] results = IntStream.range(0, bandCount).parallel()
+            .mapToObj(band -> scanBand(parent, band * bandRows, Math.min(rows, (band + 1) * bandRows)))
+            .toArray(long[][]::new);
+
+        long joins = 0;
+        allWalls = 0;
+        noWalls = 0;
+        circularPath = false;
+        for (int band = 0; band < bandCount; band++) {
+            allWalls += results[band][0];
+            noWalls += results[band][1];
+            joins += results[band][2];
+            circularPath |= results[band][3] != 0;
+            // Join the open walls below the last row of this band to the first row of the next
+            int lastRow = Math.min(rows, (band + 1) * bandRows) - 1;
+            if (lastRow < rows - 1) {
+                for (int node = lastRow * cols; node < (lastRow + 1) * cols; node++) {
+                    if (maze.isDownOpen(node)) {
+                        if (union(parent, node, node + cols)) {
+                            joins++;
+                        } else {
+                            circularPath = true;
+                        }
+                    }
+                }
+            }
+        }
+        allNodesVisited = joins == maze.size() - 1;
+        Metrics.time("verifier_maze_seconds", System.nanoTime() - time);
+    }
+
+    //Counts the cells with all or none of their walls in rows firstRow to lastRow (exclusive) and joins the open walls inside the band
+    //returns {all walls, no walls, successful joins, 1 if a circular path was found}
+    private long[] scanBand(int[] parent, int firstRow, int lastRow) {
+        long allWallCount = 0, noWallCount = 0, joins = 0, circular = 0;
+        for (int node = firstRow * cols; node < lastRow * cols; node++) {
+            parent[node] = node;
+        }
+        for (int i = firstRow; i < lastRow; i++) {
             for (int j = 0; j < cols; j++) {
+                int node = i * cols + j;
                 // Check the number of open walls for each cell
                 int openWalls = 0;
-                if (i > 0 && (maze[i - 1][j] == 2 || maze[i - 1][j] == 3)) { // Above wall is open
+                if (i > 0 && maze.isDownOpen(node - cols)) { // Above wall is open
                     openWalls++;
                 }
-                if (j > 0 && (maze[i][j - 1] == 1 || maze[i][j - 1] == 3)) { // Left wall is open
+                if (j > 0 && maze.isRightOpen(node - 1)) { // Left wall is open
                     openWalls++;
                 }
-                if (maze[i][j] == 1 || maze[i][j] == 3) { // Right wall is open
+                if (maze.isRightOpen(node)) { // Right wall is open, an opening in the right border is counted but has no node to join
                     openWalls++;
+                    if (j < cols - 1) {
+                        if (union(parent, node, node + 1)) {
+                            joins++;
+                        } else {
+                            circular = 1;
+                        }
+                    }
                 }
-                if (maze[i][j] == 2 || maze[i][j] == 3) { // Below wall is open
+                if (maze.isDownOpen(node)) { // Below wall is open, the bottom border is never joined and the join waits for the band edge if the node below is in the next band
                     openWalls++;
+                    if (i < rows - 1 && i < lastRow - 1) {
+                        if (union(parent, node, node + cols)) {
+                            joins++;
+                        } else {
+                            circular = 1;
+                        }
+                    }
                 }
                 if (openWalls == 0) {
-                    allWalls++;
+                    allWallCount++;
                 } else if (openWalls == 4) {
-                    noWalls++;
+                    noWallCount++;
                 }
             }
         }
+        return new long[]{allWallCount, noWallCount, joins, circular};
+    }
 
+    //Joins the sets of two nodes, the root with the larger index points at the smaller, returns false if they were already joined
+    private static boolean union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA == rootB) {
+            return false;
+        }
+        if (rootA < rootB) {
+            parent[rootB] = rootA;
+        } else {
+            parent[rootA] = rootB;
+        }
+        return true;
+    }
 
-        // Perform a DFS from the starting node
-        circularPath = dfs(startNode, startNode);
-
-        // Display the maze with the solution
-        displayMazeWithSolution();
-    
-        // Check if all nodes have been visited
-        for (int i = 1; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (!visited[i][j]) {
-                    allNodesVisited = false;
-                    break;
-                }
-            }
-            if (!allNodesVisited) {
-                break;
-            }
+    //Finds the root of a node's set, pointing every other node on the way at its grandparent to keep the trees shallow
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
         }
-    
-        // Display the information on the screen
-        System.out.println("Number of cells having all four walls: " + allWalls);
-        System.out.println("Number of cells with none of the four walls: " + noWalls);
-        System.out.println("Is there a circular path in the maze? " + (circularPath ? "Yes" : "No"));
-        System.out.println("Can all nodes be visited from the starting node? " + (allNodesVisited ? "Yes" : "No"));
+        return node;
     }
     
 
@@ -113,97 +215,93 @@ public class MazeVerifier {
         }
     }
     
+    //The solution was checked when it was read, if it is invalid print the part of it that was valid
     private boolean isValidSolution() {
-        int currentRow = (startNode - 1) / cols;
-        int currentCol = (startNode - 1) % cols;
-        
-        for (int i = 1; i < solution.length; i++) {
-            int nextNode = solution[i];
-            int nextRow = (nextNode - 1) / cols;
-            int nextCol = (nextNode - 1) % cols;
-            
-            if (!isValidMove(currentRow, currentCol, nextRow, nextCol)) {
-                // Invalid move in the solution, print the partial path and then return false
-                System.out.print("Partial Path: ");
-                for (int j = 0; j < i; j++) {
-                    System.out.print(solution[j]);
+        if (!solutionValid) {
+            System.out.print("Partial Path: (");
+            if (solution != null) {
+                for (int i = 0; i < validNodes; i++) {
+                    System.out.print((i > 0 ? ", " : "") + (solution[i] + 1));
                 }
-                System.out.println();
+            } else {
+                // Stream the file again, the partial path is never held in memory
+                try (PathReader reader = new PathReader(solutionFileName)) {
+                    reader.next(); // step count
+                    for (long i = 0; i < validNodes; i++) {
+                        System.out.print((i > 0 ? ", " : "") + reader.next());
+                    }
+                } catch (IOException e) {
+                    System.out.print("error reading file: " + e.getMessage());
+                }
+            }
+            System.out.println(")");
+        }
+        return solutionValid;
+    }
+
+    //Checks a path of flat node indices given in memory
+    private boolean checkPath(int[] path) {
+        for (int i = 0; i < path.length; i++) {
+            if (!checkNode(path[i] + 1)) {
                 return false;
             }
-            
-            currentRow = nextRow;
-            currentCol = nextCol;
         }
+        return validNodes > 0 && current == endNode - 1;
+    }
 
-        // Check if the final position matches the endNode
-        boolean isFinalValid = (currentRow * cols + currentCol + 1) == endNode;
-        
-        if (!isFinalValid) {
-            // The final position is not the endNode, print the partial path
-            System.out.print("Partial Path: ");
-            for (int j = 0; j < solution.length - 1; j++) {
-                System.out.print(solution[j]);
+    //Checks a "steps : (a, b, c)" solution one node at a time as the numbers are read
+    private boolean checkPath(PathReader reader) throws IOException {
+        long steps = reader.next();
+        long node;
+        while ((node = reader.next()) != -1) {
+            if (!checkNode(node)) {
+                return false;
             }
-            System.out.println();
         }
-            
-        return isFinalValid;
+        return validNodes > 0 && current == endNode - 1 && steps == validNodes - 1;
+    }
+
+    //Checks the next node of a solution, numbered from 1. The first has to be the start node and every other one has to be a
+    //neighbour of the one before through an open wall that has not already been visited on the path
+    private boolean checkNode(long nodeNumber) {
+        if (nodeNumber < 1 || nodeNumber > maze.size()) {
+            return false;
+        }
+        int node = (int) nodeNumber - 1;
+        if (validNodes == 0) {
+            if (node != startNode - 1) {
+                return false;
+            }
+        } else if (onPath.contains(node) || !isValidMove(current / cols, current % cols, node / cols, node % cols)) {
+            return false;
+        }
+        onPath.add(node);
+        current = node;
+        validNodes++;
+        return true;
     }
 
+    //True if the two nodes are next to each other and the wall between them is open
     private boolean isValidMove(int currentRow, int currentCol, int nextRow, int nextCol) {
         boolean wallOpen;
+        if (Math.abs(nextRow - currentRow) + Math.abs(nextCol - currentCol) != 1) {
+            return false;
+        }
         
         // Check if the wall is open in the direction being moved to
         if (nextRow > currentRow) { // Down
-            wallOpen = (maze[currentRow][currentCol] == 2 || maze[currentRow][currentCol] == 3);
+            wallOpen = maze.isDownOpen(currentRow * cols + currentCol);
         } else if (nextRow < currentRow) { // Up
-            wallOpen = (maze[nextRow][nextCol] == 2 || maze[nextRow][nextCol] == 3);
+            wallOpen = maze.isDownOpen(nextRow * cols + nextCol);
         } else if (nextCol > currentCol) { // Right
-            wallOpen = (maze[currentRow][currentCol] == 1 || maze[currentRow][currentCol] == 3);
+            wallOpen = maze.isRightOpen(currentRow * cols + currentCol);
         } else { // Left
-            wallOpen = (maze[nextRow][nextCol] == 1 || maze[nextRow][nextCol] == 3);
+            wallOpen = maze.isRightOpen(nextRow * cols + nextCol);
         }        
         
         return wallOpen;
     }
 
-    private boolean dfs(int node, int parent) {
-        int row = (node - 1) / cols;
-        int col = (node - 1) % cols;
-        visited[row][col] = true; // Mark the current node as visited
-
-        for (int i = 0; i < 4; i++) { // Loop through all four possible directions (up, right, down, left)
-            int nextRow = row + rowDirection[i]; // Find the row of the next node
-            int nextCol = col + colDirection[i]; // Find the column of the next node
-
-            if (nextRow >= 0 && nextRow < rows && nextCol >= 0 && nextCol < cols) { // If the next node is within the maze and has not been visited yet
-                boolean wallOpen = false;
-
-                if (i == 0) { // Up
-                    wallOpen = (maze[nextRow][nextCol] == 2 || maze[nextRow][nextCol] == 3);
-                } else if (i == 1) { // Right
-                    wallOpen = (maze[row][col] == 1 || maze[row][col] == 3);
-                } else if (i == 2) { // Down
-                    wallOpen = (maze[row][col] == 2 || maze[row][col] == 3);
-                } else if (i == 3) { // Left
-                    wallOpen = (maze[nextRow][nextCol] == 1 || maze[nextRow][nextCol] == 3);
-                }
-                
-                if (wallOpen && !visited[nextRow][nextCol]) {
-                    // If the wall is open and the next cell has not been visited, recursively visit it
-                    if (dfs(nextRow * cols + nextCol+1, node)) {
-                        return true; // Detected a circular path
-                    }
-                } else if ((nextRow * cols + nextCol+1) != parent && visited[nextRow][nextCol] && wallOpen) {
-                    // If the next cell has been visited and is not the parent node, it's a circular path
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
     private void displayMazeWithSolution() {
         if (rows > 10 || cols > 10){
             return;
@@ -226,7 +324,7 @@ public class MazeVerifier {
     
             for (int j = 0; j < cols; j++) {
                 // Display left outer wall and inner vertical walls
-                if (j == 0 || (maze[i][j - 1] != 1 && maze[i][j - 1] != 3)) {
+                if (j == 0 || !maze.isRightOpen(i * cols + j - 1)) {
                     System.out.print("|");
                 } else {
                     System.out.print(" "); 
@@ -256,7 +354,7 @@ public class MazeVerifier {
             // Display middle rows horizontal walls
             if (i != rows - 1) {
                 for (int j = 0; j < cols; j++) {
-                    if ((maze[i][j] != 2 && maze[i][j] != 3)){ 
+                    if (!maze.isDownOpen(i * cols + j)){ 
                         System.out.print("+--");
                     } else {
                         System.out.print("+  ");
@@ -276,21 +374,72 @@ public class MazeVerifier {
     
     
     private boolean isCellVisited(int cell) {
-        for (int i = 0; i < solution.length; i++) {
-            if (solution[i] == cell) {
-                return true;
+        return onPath.contains(cell - 1);
+    }
+
+    //Reads the numbers of the first solution line in a file one at a time through a small buffer, without building Strings
+    private static class PathReader implements Closeable {
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position = 0;
+        private int limit = 0;
+        private boolean ended = false;
+
+        PathReader(String filename) throws IOException {
+            in = new FileInputStream(filename);
+        }
+
+        //Next number in the line, or -1 once the closing bracket or the end of the line is reached
+        long next() throws IOException {
+            int c;
+            do {
+                c = read();
+                if (c == -1 || c == ')' || c == '\n') {
+                    ended = true;
+                    return -1;
+                }
+            } while (c < '0' || c > '9');
+            long value = 0;
+            while (c >= '0' && c <= '9') {
+                value = Math.min(value * 10 + (c - '0'), Long.MAX_VALUE / 10);
+                c = read();
+            }
+            if (c == ')' || c == '\n' || c == -1) {
+                ended = true;
+            }
+            return value;
+        }
+
+        private int read() throws IOException {
+            if (ended) {
+                return -1;
+            }
+            if (position == limit) {
+                limit = in.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
             }
+            return buffer[position++] & 0xFF; // bytes are signed, so 0xFF would read as the -1 for the end of the path
+        }
+
+        public void close() throws IOException {
+            in.close();
         }
-        return false;
     }
 
     public static void main(String[] args) {
-        if (args.length != 2) {
-            System.out.println("Usage: java MazeVerifier <maze_file> <solution_file>");
+        if (args.length != 2 && !(args.length == 4 && args[2].equals("--bands"))) {
+            System.out.println("Usage: java MazeVerifier <maze_file> <solution_file> [--bands N]");
             return;
         }
 
         MazeVerifier verifier = new MazeVerifier(args[0], args[1]);
+        if (args.length == 4) {
+            verifier.setBands(Integer.parseInt(args[3]));
+        }
         verifier.verifyMaze();
         verifier.verifySolution();
         
@@ -0,0 +1,144 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+//Buffered output for mazes and solutions. Text is encoded as ASCII into one reusable direct buffer and handed to the channel a
+//block at a time, instead of a synchronized print call per node. With echo on every block is also copied to the console
+public class MazeWriter implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes();
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[20]; // scratch for printing numbers back to front
+    private final byte[] echoBytes; // copy of each block for the console, null when echo is off
+
+    public MazeWriter(WritableByteChannel channel, boolean echo) {
+        this.channel = channel;
+        this.echoBytes = echo ? new byte[BUFFER_SIZE] : null;
+    }
+
+    //Opens a file for writing, replacing it or appending to it
+    public static MazeWriter open(String filename, boolean append, boolean echo) throws IOException {
+        FileChannel channel = append
+            ? FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)
+            : FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new MazeWriter(channel, echo);
+    }
+
+    //Writer on the console, flush it before printing anything else to System.out and dont close it
+    public static MazeWriter console() {
+        return new MazeWriter(Channels.newChannel(System.out), false);
+    }
+
+    //Writes the maze in the rows:cols:start:end:<digits> format, one digit per node
+    public void writeMaze(MazeGrid maze) throws IOException {
+        print(maze.getRows()).print(':').print(maze.getCols()).print(':')
+            .print(maze.getStart() + 1).print(':').print(maze.getEnd() + 1).print(':');
+        int node = 0;
+        while (node < maze.size()) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int count = Math.min(buffer.remaining(), maze.size() - node);
+            for (int i = 0; i < count; i++) {
+                buffer.put((byte) ('0' + maze.get(node++)));
+            }
+        }
+    }
+
+    //Writes count wall values 0-3 as digits, for generators that produce the maze a row at a time after printing the header themselves
+    public void writeWalls(byte[] walls, int count) throws IOException {
+        int index = 0;
+        while (index < count) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int block = Math.min(buffer.remaining(), count - index);
+            for (int i = 0; i < block; i++) {
+                buffer.put((byte) ('0' + walls[index++]));
+            }
+        }
+    }
+
+    //Writes a path as (a, b, c) using 1 based node numbers
+    public MazeWriter printPath(int[] path) throws IOException {
+        print('(');
+        for (int i = 0; i < path.length; i++) {
+            print(path[i] + 1L);
+            if (i < path.length - 1) {
+                print(',').print(' ');
+            }
+        }
+        return print(')');
+    }
+
+    public MazeWriter print(char c) throws IOException {
+        if (!buffer.hasRemaining()) {
+            flush();
+        }
+        buffer.put((byte) c);
+        return this;
+    }
+
+    //Writes ASCII text
+    public MazeWriter print(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            print(text.charAt(i));
+        }
+        return this;
+    }
+
+    public MazeWriter print(long value) throws IOException {
+        if (value < 0) {
+            print('-');
+        } else {
+            value = -value; // work with negatives so Long.MIN_VALUE prints too
+        }
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' - (value % 10));
+            value /= 10;
+        } while (value != 0);
+        if (buffer.remaining() < length) {
+            flush();
+        }
+        while (length > 0) {
+            buffer.put(digits[--length]);
+        }
+        return this;
+    }
+
+    public MazeWriter println() throws IOException {
+        if (buffer.remaining() < LINE_SEPARATOR.length) {
+            flush();
+        }
+        buffer.put(LINE_SEPARATOR);
+        return this;
+    }
+
+    //Hands everything buffered so far to the channel, and to the console when echo is on
+    public void flush() throws IOException {
+        buffer.flip();
+        if (echoBytes != null) {
+            int length = buffer.remaining();
+            buffer.get(echoBytes, 0, length);
+            System.out.write(echoBytes, 0, length);
+            System.out.flush();
+            buffer.rewind();
+        }
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+//Process wide counters, peaks and histograms for the solvers, generator, verifier and annealer. Off unless the JVM is started with
+//-Dmaze.metrics=json or -Dmaze.metrics=prometheus, then everything recorded is written at exit to -Dmaze.metrics.file, or to stderr
+//so the normal output is unchanged. ENABLED is a static final, so when it is off the JIT drops every guarded block as dead code.
+//Hot loops count into locals or fields they already keep and record once per solve, walk or annealing round, never per node
+public final class Metrics {
+    private static final String FORMAT = System.getProperty("maze.metrics", "");
+    public static final boolean ENABLED = FORMAT.equals("json") || FORMAT.equals("prometheus");
+
+    private static final ConcurrentMap<String, LongAdder> counters = new ConcurrentSkipListMap<>();
+    private static final ConcurrentMap<String, LongAccumulator> peaks = new ConcurrentSkipListMap<>();
+    private static final ConcurrentMap<String, Histogram> histograms = new ConcurrentSkipListMap<>();
+
+    static {
+        if (ENABLED) {
+            Runtime.getRuntime().addShutdownHook(new Thread(Metrics::dump));
+        }
+    }
+
+    private Metrics() {
+    }
+
+    //Adds to a counter
+    public static void count(String name, long delta) {
+        if (ENABLED) {
+            counters.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+        }
+    }
+
+    //Keeps the largest value seen, for sizes like the peak frontier
+    public static void peak(String name, long value) {
+        if (ENABLED) {
+            peaks.computeIfAbsent(name, key -> new LongAccumulator(Math::max, 0)).accumulate(value);
+        }
+    }
+
+    //Records a duration in a histogram, names end in _seconds and the nanos are converted when written
+    public static void time(String name, long nanos) {
+        if (ENABLED) {
+            histograms.computeIfAbsent(name, key -> new Histogram(1e9)).record(nanos);
+        }
+    }
+
+    //Records a plain value in a histogram, like the moves taken in one annealing round
+    public static void observe(String name, long value) {
+        if (ENABLED) {
+            histograms.computeIfAbsent(name, key -> new Histogram(1)).record(value);
+        }
+    }
+
+    //Writes everything in the requested format, called by the shutdown hook
+    private static void dump() {
+        StringBuilder text = new StringBuilder();
+        if (FORMAT.equals("json")) {
+            writeJson(text);
+        } else {
+            writePrometheus(text);
+        }
+        String file = System.getProperty("maze.metrics.file");
+        try {
+            if (file == null) {
+                System.err.print(text);
+                System.err.flush();
+            } else {
+                Files.write(Paths.get(file), text.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            System.err.println("Unable to write metrics: " + e.getMessage());
+        }
+    }
+
+    private static void writeJson(StringBuilder out) {
+        out.append("{\n  \"counters\": {");
+        String separator = "";
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            out.append(separator).append("\n    \"").append(counter.getKey()).append("\": ").append(counter.getValue().sum());
+            separator = ",";
+        }
+        out.append("\n  },\n  \"peaks\": {");
+        separator = "";
+        for (Map.Entry<String, LongAccumulator> peak : peaks.entrySet()) {
+            out.append(separator).append("\n    \"").append(peak.getKey()).append("\": ").append(peak.getValue().get());
+            separator = ",";
+        }
+        out.append("\n  },\n  \"histograms\": {");
+        separator = "";
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            long count = histogram.count.sum();
+            out.append(separator).append("\n    \"").append(entry.getKey()).append("\": {\"count\": ").append(count)
+                .append(", \"sum\": ").append(histogram.scaled(histogram.sum.sum()))
+                .append(", \"max\": ").append(histogram.scaled(histogram.max.get()));
+            for (int i = 0; i < Histogram.QUANTILES.length; i++) {
+                out.append(", \"").append(Histogram.QUANTILE_KEYS[i]).append("\": ").append(histogram.quantile(Histogram.QUANTILES[i]));
+            }
+            out.append('}');
+            separator = ",";
+        }
+        out.append("\n  }\n}\n");
+    }
+
+    //Counters and peaks as counter and gauge samples, histograms as summaries with the same quantiles as the JSON
+    private static void writePrometheus(StringBuilder out) {
+        for (Map.Entry<String, LongAdder> counter : counters.entrySet()) {
+            out.append("# TYPE ").append(counter.getKey()).append("_total counter\n")
+                .append(counter.getKey()).append("_total ").append(counter.getValue().sum()).append('\n');
+        }
+        for (Map.Entry<String, LongAccumulator> peak : peaks.entrySet()) {
+            out.append("# TYPE ").append(peak.getKey()).append(" gauge\n")
+                .append(peak.getKey()).append(' ').append(peak.getValue().get()).append('\n');
+        }
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            String name = entry.getKey();
+            Histogram histogram = entry.getValue();
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (double quantile : Histogram.QUANTILES) {
+                out.append(name).append("{quantile=\"").append(quantile).append("\"} ")
+                    .append(histogram.quantile(quantile)).append('\n');
+            }
+            out.append(name).append("_sum ").append(histogram.scaled(histogram.sum.sum())).append('\n')
+                .append(name).append("_count ").append(histogram.count.sum()).append('\n');
+        }
+    }
+
+    //Log-linear histogram in the HDR style: values below 8 get a bucket each, above that every power of two is split into 8 equal
+    //buckets, so any value is known to within 12.5% from 488 counters whatever its size. Recording is a bit scan and one atomic add
+    private static final class Histogram {
+        static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+        static final String[] QUANTILE_KEYS = {"p50", "p90", "p99", "p999"};
+        private static final int SUB_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+        private final double unit; // recorded values per reported unit, 1e9 for nanos reported as seconds
+        private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BITS) * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        Histogram(double unit) {
+            this.unit = unit;
+        }
+
+        void record(long value) {
+            value = Math.max(value, 0);
+            buckets.incrementAndGet(bucket(value));
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        //the top bit picks the power of two and the 3 bits below it pick the bucket within it
+        private static int bucket(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        //largest value that falls in a bucket
+        private static long upperBound(int bucket) {
+            if (bucket < SUB_BUCKETS) {
+                return bucket;
+            }
+            int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+            long low = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+            return low + (1L << (exponent - SUB_BITS)) - 1;
+        }
+
+        //the value below which the given fraction of the recorded values fall, to the precision of the buckets
+        double quantile(double quantile) {
+            long total = count.sum();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return scaled(Math.min(upperBound(i), max.get()));
+                }
+            }
+            return scaled(max.get());
+        }
+
+        double scaled(long value) {
+            return value / unit;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+//A search over a MazeGrid from one node to another. MazeSolver runs whichever strategies are named on the command line
+public interface SolverStrategy {
+    //Finds a path from start to end as flat node indices, or null if the end cannot be reached
+    int[] solve(MazeGrid maze, int start, int end);
+
+    //Number of nodes added to the frontier by the last solve
+    long getNodesGenerated();
+
+    //Looks up a strategy by its command line name
+    static SolverStrategy forName(String name) {
+        switch (name.toLowerCase()) {
+            case "bfs":
+                return new FrontierSearch(false);
+            case "dfs":
+                return new FrontierSearch(true);
+            case "astar":
+                return new AStarSearch();
+            case "bidirectional":
+                return new BidirectionalSearch();
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + name + " (use bfs, dfs, astar or bidirectional)");
+        }
+    }
+}
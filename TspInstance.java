@@ -0,0 +1,335 @@
+import java.util.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.zip.*;
+
+//Points of a TSP instance and everything derived from them that the annealing chains share read only: the optional distance
+//matrix, the nearest neighbour lists and the grid ordered starting tour. Cities are numbered 0 to N-1 in file order
+public class TspInstance {
+    public static final int MAX_MATRIX = 46340; // largest N where N * N still fits an int index
+    private static final long MAP_WINDOW = 1L << 30; // largest slice of a file mapped at once
+
+    //Binary format: a 16 byte header of big endian ints (magic "TSPB", version, number of points, CRC32 of the coordinates)
+    //followed by every x and then every y as big endian ints, so each array is one bulk copy out of the mapped file
+    private static final int BINARY_MAGIC = 0x54535042;
+    private static final int BINARY_VERSION = 1;
+    private static final int BINARY_HEADER = 16;
+
+    private final int n;
+    private final int[] x;
+    private final int[] y;
+    private boolean fractional; // plain euclidean distances, otherwise truncated to an int
+    private int[] distances; // flat N x N distance matrix, null until precomputeDistances
+    private double[] fractionalDistances; // the same in fractional mode
+    private int k; // neighbours per city
+    private int[] neighbours; // k nearest cities of each city, closest first, k entries per city
+    private int[] gridOrder; // every city once, in grid cell order
+
+    public TspInstance(int[] x, int[] y) {
+        this.n = x.length;
+        this.x = x;
+        this.y = y;
+    }
+
+    //Reads points in the binary format or as text, the point count and then an "x y" line per point, whichever the file starts with.
+    //The text is memory mapped a window at a time and the numbers are decoded straight from the mapped bytes into the coordinate arrays
+    public static TspInstance read(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long length = channel.size();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(length, MAP_WINDOW));
+            if (length >= BINARY_HEADER && buffer.getInt(0) == BINARY_MAGIC) {
+                return readBinary(channel, filename);
+            }
+
+            // Whitespace separated numbers, value 0 is the count and then x and y of each point in turn. The byte after the end of
+            // the file is taken as a newline so the last number ends like the others
+            int[] x = new int[0];
+            int[] y = new int[0];
+            long values = 1; // numbers expected, known once the count is read
+            long stored = 0;
+            long value = 0;
+            int digits = 0;
+            boolean negative = false;
+            long windowStart = 0;
+            for (long position = 0; position <= length && stored < values; position++) {
+                if (position - windowStart == buffer.limit() && position < length) {
+                    windowStart = position;
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(length - position, MAP_WINDOW));
+                }
+                int b = position < length ? buffer.get((int) (position - windowStart)) : '\n';
+                if (b >= '0' && b <= '9') {
+                    if (++digits > 10) {
+                        throw new IOException("Number too long at byte " + position + " in " + filename);
+                    }
+                    value = value * 10 + b - '0';
+                } else if (b == '-' && digits == 0 && !negative) {
+                    negative = true;
+                } else if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                    if (digits == 0) {
+                        if (negative) {
+                            throw new IOException("Invalid number at byte " + position + " in " + filename);
+                        }
+                        continue;
+                    }
+                    long number = negative ? -value : value;
+                    if (number < Integer.MIN_VALUE || number > Integer.MAX_VALUE) {
+                        throw new IOException("Number out of range at byte " + position + " in " + filename);
+                    }
+                    if (stored == 0) {
+                        if (number < 0) {
+                            throw new IOException("Invalid point count in " + filename);
+                        }
+                        x = new int[(int) number];
+                        y = new int[(int) number];
+                        values = 1 + 2 * number;
+                    } else if ((stored & 1) == 1) {
+                        x[(int) (stored >>> 1)] = (int) number;
+                    } else {
+                        y[(int) ((stored - 1) >>> 1)] = (int) number;
+                    }
+                    stored++;
+                    value = 0;
+                    digits = 0;
+                    negative = false;
+                } else {
+                    throw new IOException("Unexpected character at byte " + position + " in " + filename);
+                }
+            }
+            if (stored < values) {
+                throw new IOException("Points file " + filename + " ends after " + (stored - 1) / 2 + " of " + x.length + " points");
+            }
+            return new TspInstance(x, y);
+        }
+    }
+
+    //Decodes a binary points file, checking the CRC
+    private static TspInstance readBinary(FileChannel channel, String filename) throws IOException {
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BINARY_HEADER);
+        int version = header.getInt(4);
+        int n = header.getInt(8);
+        if (version != BINARY_VERSION) {
+            throw new IOException("Unsupported points format version " + version + " in " + filename);
+        }
+        if (n < 0 || channel.size() < BINARY_HEADER + 8L * n) {
+            throw new IOException("Invalid binary points header in " + filename);
+        }
+        CRC32 crc = new CRC32();
+        int[] x = new int[n];
+        int[] y = new int[n];
+        readInts(channel, BINARY_HEADER, x, crc);
+        readInts(channel, BINARY_HEADER + 4L * n, y, crc);
+        if ((int) crc.getValue() != header.getInt(12)) {
+            throw new IOException("Checksum mismatch in " + filename);
+        }
+        return new TspInstance(x, y);
+    }
+
+    //fills values with the big endian ints at offset, a window at a time, adding their bytes to the checksum
+    private static void readInts(FileChannel channel, long offset, int[] values, CRC32 crc) throws IOException {
+        int perWindow = (int) (MAP_WINDOW / 4);
+        for (int i = 0; i < values.length; i += perWindow) {
+            int count = Math.min(perWindow, values.length - i);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset + 4L * i, 4L * count);
+            crc.update(buffer.duplicate());
+            buffer.asIntBuffer().get(values, i, count);
+        }
+    }
+
+    //Writes the points in the binary format, the CRC goes into the header once the coordinates are written
+    public void writeBinary(String filename) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(filename),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            CRC32 crc = new CRC32();
+            channel.position(BINARY_HEADER);
+            for (int[] values : new int[][]{x, y}) {
+                for (int value : values) {
+                    buffer.putInt(value);
+                    if (!buffer.hasRemaining()) {
+                        writeBlock(channel, buffer, crc);
+                    }
+                }
+            }
+            writeBlock(channel, buffer, crc);
+
+            buffer.putInt(BINARY_MAGIC).putInt(BINARY_VERSION).putInt(n).putInt((int) crc.getValue());
+            buffer.flip();
+            channel.position(0);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    //Adds the buffered bytes to the checksum and writes them out, leaving the buffer empty
+    private static void writeBlock(FileChannel channel, ByteBuffer buffer, CRC32 crc) throws IOException {
+        buffer.flip();
+        crc.update(buffer.duplicate());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public int size() {
+        return n;
+    }
+
+    //stops truncating distances to an int, call it before precomputeDistances
+    public void useFractionalDistances() {
+        fractional = true;
+    }
+
+    //computes every distance once so dist becomes a lookup, only call this for N up to MAX_MATRIX. The fractional matrix takes twice the memory
+    public void precomputeDistances() {
+        if (fractional) {
+            double[] matrix = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    matrix[i * n + j] = matrix[j * n + i] = computeDist(i, j);
+                }
+            }
+            fractionalDistances = matrix;
+        } else {
+            int[] matrix = new int[n * n];
+            for (int i = 0; i < n; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    matrix[i * n + j] = matrix[j * n + i] = (int) computeDist(i, j);
+                }
+            }
+            distances = matrix;
+        }
+    }
+
+    //Euclidean distance, from the matrix when there is one
+    public double dist(int i, int j) {
+        if (distances != null) {
+            return distances[i * n + j];
+        }
+        if (fractionalDistances != null) {
+            return fractionalDistances[i * n + j];
+        }
+        return computeDist(i, j);
+    }
+
+    //Calculates euclidean distance, truncated to an int unless fractional
+    private double computeDist(int i, int j) {
+        long dx = (long) x[j] - x[i];
+        long dy = (long) y[j] - y[i];
+        double distance = Math.sqrt((double) dx * dx + (double) dy * dy); // the squares of far apart coordinates overflow a long
+        return fractional ? distance : (int) distance;
+    }
+
+    //length of a tour given as N + 1 cities that starts and ends at the same city
+    public double tourLength(int[] tour) {
+        double length = 0;
+        for (int i = 0; i < n; i++) {
+            length += dist(tour[i], tour[i + 1]);
+        }
+        return length;
+    }
+
+    public int neighbourCount() {
+        return k;
+    }
+
+    //i-th nearest city of a city, buildNeighbours has to be called first
+    public int neighbour(int city, int i) {
+        return neighbours[city * k + i];
+    }
+
+    public int[] gridOrder() {
+        return gridOrder;
+    }
+
+    //Finds the k nearest cities of every city. The points are bucketed into a grid of about 2 points per cell and each search
+    //goes out from the city's cell a ring of cells at a time, stopping once the next ring is further away than the k-th best so far.
+    //The cells snaking along alternate rows also give gridOrder, a starting tour made mostly of short edges
+    public void buildNeighbours(int count) {
+        k = Math.max(1, Math.min(count, n - 1));
+        int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE, minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, x[i]);
+            maxX = Math.max(maxX, x[i]);
+            minY = Math.min(minY, y[i]);
+            maxY = Math.max(maxY, y[i]);
+        }
+        int side = Math.max(1, (int) Math.sqrt(n / 2.0));
+        double cellWidth = ((long) maxX - minX + 1) / (double) side;
+        double cellHeight = ((long) maxY - minY + 1) / (double) side;
+
+        // Counting sort of the cities by cell
+        int[] cellOf = new int[n];
+        int[] cellStart = new int[side * side + 1];
+        for (int i = 0; i < n; i++) {
+            int cx = Math.min(side - 1, (int) ((x[i] - (long) minX) / cellWidth));
+            int cy = Math.min(side - 1, (int) ((y[i] - (long) minY) / cellHeight));
+            cellOf[i] = cy * side + cx;
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int i = 0; i < side * side; i++) {
+            cellStart[i + 1] += cellStart[i];
+        }
+        int[] cellCities = new int[n];
+        int[] fill = Arrays.copyOf(cellStart, side * side);
+        for (int i = 0; i < n; i++) {
+            cellCities[fill[cellOf[i]]++] = i;
+        }
+
+        gridOrder = new int[n];
+        int next = 0;
+        for (int cy = 0; cy < side; cy++) {
+            for (int i = 0; i < side; i++) {
+                int cell = cy * side + ((cy & 1) == 0 ? i : side - 1 - i);
+                for (int q = cellStart[cell]; q < cellStart[cell + 1]; q++) {
+                    gridOrder[next++] = cellCities[q];
+                }
+            }
+        }
+
+        neighbours = new int[n * k];
+        double[] best = new double[k]; // squared distances of the candidates so far, closest first
+        double ringWidth = Math.min(cellWidth, cellHeight);
+        for (int p = 0; p < n; p++) {
+            int cx = cellOf[p] % side;
+            int cy = cellOf[p] / side;
+            int found = 0;
+            for (int r = 0; r < side; r++) {
+                for (int gy = Math.max(0, cy - r); gy <= Math.min(side - 1, cy + r); gy++) {
+                    // only the cells on the border of the ring, the inside was searched already
+                    int step = gy == cy - r || gy == cy + r ? 1 : 2 * r;
+                    for (int gx = cx - r; gx <= cx + r; gx += step) {
+                        if (gx < 0 || gx >= side) {
+                            continue;
+                        }
+                        int cell = gy * side + gx;
+                        for (int q = cellStart[cell]; q < cellStart[cell + 1]; q++) {
+                            int city = cellCities[q];
+                            long dx = (long) x[city] - x[p];
+                            long dy = (long) y[city] - y[p];
+                            double d2 = (double) dx * dx + (double) dy * dy;
+                            if (city == p || (found == k && d2 >= best[k - 1])) {
+                                continue;
+                            }
+                            int slot = found < k ? found++ : k - 1;
+                            while (slot > 0 && best[slot - 1] > d2) {
+                                best[slot] = best[slot - 1];
+                                neighbours[p * k + slot] = neighbours[p * k + slot - 1];
+                                slot--;
+                            }
+                            best[slot] = d2;
+                            neighbours[p * k + slot] = city;
+                        }
+                    }
+                }
+                // every city in the next ring is at least r cells away
+                double reach = r * ringWidth;
+                if (found == k && reach * reach >= best[k - 1]) {
+                    break;
+                }
+            }
+        }
+    }
+}
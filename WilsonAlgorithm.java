@@ -0,0 +1,67 @@
+import java.util.*;
+
+//Wilson's algorithm. Starting from a tree of one random node, a random walk goes from the next node not in the tree until it hits
+//the tree, remembering only the last direction taken from each node so any loop in the walk is erased as it is overwritten. The
+//walk is then retraced from its start and added to the tree. Every spanning tree comes out with the same probability, so the mazes
+//have none of the long corridors of the backtracking walk. Needs a bit per node for the tree and a byte per node for the directions
+public class WilsonAlgorithm implements MazeAlgorithm {
+    private static final int UP = 0, RIGHT = 1, DOWN = 2, LEFT = 3;
+
+    public void carve(MazeGrid maze, SplittableRandom rand) {
+        int rows = maze.getRows();
+        int cols = maze.getCols();
+        CellSet inTree = new CellSet(maze.size());
+        byte[] direction = new byte[maze.size()];
+        inTree.add(rand.nextInt(maze.size()));
+
+        // the cursor only moves forward since nodes never leave the tree
+        for (int first = inTree.nextAbsent(0); first < maze.size(); first = inTree.nextAbsent(first)) {
+            // Walk until the tree is hit, a node walked through twice keeps only its latest direction
+            int node = first;
+            while (!inTree.contains(node)) {
+                int row = node / cols, col = node % cols;
+                int step;
+                do {
+                    step = rand.nextInt(4);
+                } while ((step == UP && row == 0) || (step == RIGHT && col == cols - 1)
+                    || (step == DOWN && row == rows - 1) || (step == LEFT && col == 0));
+                direction[node] = (byte) step;
+                node = move(node, step, cols);
+            }
+
+            // Retrace the loop erased walk from its first node, opening each wall on the way
+            node = first;
+            while (!inTree.contains(node)) {
+                int next = move(node, direction[node], cols);
+                switch (direction[node]) {
+                    case UP:
+                        maze.open(next, MazeGrid.DOWN);
+                        break;
+                    case RIGHT:
+                        maze.open(node, MazeGrid.RIGHT);
+                        break;
+                    case DOWN:
+                        maze.open(node, MazeGrid.DOWN);
+                        break;
+                    default:
+                        maze.open(next, MazeGrid.RIGHT);
+                }
+                inTree.add(node);
+                node = next;
+            }
+        }
+    }
+
+    private static int move(int node, int step, int cols) {
+        switch (step) {
+            case UP:
+                return node - cols;
+            case RIGHT:
+                return node + 1;
+            case DOWN:
+                return node + cols;
+            default:
+                return node - 1;
+        }
+    }
+}
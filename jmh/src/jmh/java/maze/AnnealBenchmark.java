@@ -0,0 +1,54 @@
+package maze;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+//A fixed number of annealing sweeps from the starting tour at the starting temperature, on n seeded random points.
+//Swap sweeps are O(n^2), so swap is left out of the defaults and can be run on its own with -p move=swap -p n=1000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnealBenchmark {
+    private static final int SWEEPS = 10; // annealing sweeps per operation
+
+    @Param({"1000", "10000"})
+    int n;
+
+    @Param({"2opt", "oropt"})
+    String move;
+
+    private TspInstance tsp;
+    private double temperature;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random rand = new Random(GenerateBenchmark.SEED);
+        int[] x = new int[n];
+        int[] y = new int[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = rand.nextInt(1_000_000);
+            y[i] = rand.nextInt(1_000_000);
+        }
+        tsp = new TspInstance(x, y);
+        if (n <= 5000) {
+            tsp.precomputeDistances();
+        }
+        tsp.buildNeighbours(8);
+        temperature = new ClimbTSP(tsp, move, new SplittableRandom(GenerateBenchmark.SEED)).startTemperature();
+    }
+
+    @Benchmark
+    public void anneal(Blackhole blackhole) {
+        ClimbTSP chain = new ClimbTSP(tsp, move, new SplittableRandom(GenerateBenchmark.SEED));
+        for (int i = 0; i < SWEEPS; i++) {
+            chain.sweep(temperature);
+        }
+        blackhole.consume(chain);
+    }
+}
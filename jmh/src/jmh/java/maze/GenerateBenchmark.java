@@ -0,0 +1,36 @@
+package maze;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+//Maze generation with each algorithm on a size x size grid. Every benchmark seeds its inputs with SEED so different versions
+//measure the same work
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerateBenchmark {
+    static final long SEED = 42;
+
+    @Param({"100", "1000"})
+    int size;
+
+    @Param({"walk", "wilson", "kruskal", "eller"})
+    String algorithm;
+
+    @Benchmark
+    public void generate(Blackhole blackhole) {
+        blackhole.consume(generate(size, algorithm));
+    }
+
+    //the random walk is "walk" and has no MazeAlgorithm
+    static MazeGrid generate(int size, String algorithm) {
+        MazeGenerator generator = new MazeGenerator(size, size, SEED);
+        generator.setAlgorithm(algorithm.equals("walk") ? null : MazeAlgorithm.forName(algorithm));
+        generator.generateMaze();
+        return generator.getMaze();
+    }
+}
@@ -0,0 +1,60 @@
+package maze;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+//Text and binary maze files written and read back through temporary files, which are written once before the load benchmarks
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MazeFileBenchmark {
+    @Param({"100", "1000"})
+    int size;
+
+    private MazeGrid maze;
+    private File text;
+    private File binary;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        maze = GenerateBenchmark.generate(size, "walk");
+        text = File.createTempFile("maze", ".txt");
+        binary = File.createTempFile("maze", ".bin");
+        storeText();
+        maze.writeBinary(binary.getPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        text.delete();
+        binary.delete();
+    }
+
+    @Benchmark
+    public void storeText() throws IOException {
+        try (MazeWriter out = MazeWriter.open(text.getPath(), false, false)) {
+            out.writeMaze(maze);
+        }
+    }
+
+    @Benchmark
+    public void loadText(Blackhole blackhole) throws IOException {
+        blackhole.consume(MazeGrid.read(text.getPath()));
+    }
+
+    @Benchmark
+    public void storeBinary() throws IOException {
+        maze.writeBinary(binary.getPath());
+    }
+
+    @Benchmark
+    public void loadBinary(Blackhole blackhole) throws IOException {
+        blackhole.consume(MazeGrid.read(binary.getPath()));
+    }
+}
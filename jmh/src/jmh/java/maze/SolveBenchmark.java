@@ -0,0 +1,34 @@
+package maze;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+//Every solver strategy on the same seeded size x size maze, generated once per trial so only the search is timed
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolveBenchmark {
+    @Param({"100", "1000"})
+    int size;
+
+    @Param({"bfs", "dfs", "astar", "bidirectional"})
+    String strategyName;
+
+    private MazeGrid maze;
+    private SolverStrategy strategy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        maze = GenerateBenchmark.generate(size, "walk");
+        strategy = SolverStrategy.forName(strategyName);
+    }
+
+    @Benchmark
+    public void solve(Blackhole blackhole) {
+        blackhole.consume(strategy.solve(maze, maze.getStart(), maze.getEnd()));
+    }
+}
@@ -0,0 +1,33 @@
+package maze;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+//The checks verifyMaze makes, without printing the results, on a seeded maze and its BFS solution
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerifyBenchmark {
+    @Param({"100", "1000"})
+    int size;
+
+    private MazeGrid maze;
+    private int[] path;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        maze = GenerateBenchmark.generate(size, "walk");
+        path = SolverStrategy.forName("bfs").solve(maze, maze.getStart(), maze.getEnd());
+    }
+
+    @Benchmark
+    public void verify(Blackhole blackhole) {
+        MazeVerifier verifier = new MazeVerifier(maze, path);
+        blackhole.consume(verifier.isPerfect());
+        blackhole.consume(verifier.isSolutionValid());
+    }
+}